@@ -2,18 +2,27 @@ package ir.mrstudios.databasecloner;
 
 import ir.mrstudios.databasecloner.cloner.MongoCloner;
 import ir.mrstudios.databasecloner.cloner.MySQLCloner;
+import ir.mrstudios.databasecloner.cloner.RepositoryCloner;
+import ir.mrstudios.databasecloner.cloner.SQLiteCloner;
+import ir.mrstudios.databasecloner.codecs.Codec;
+import ir.mrstudios.databasecloner.codecs.NoneCodec;
 import ir.mrstudios.databasecloner.enums.Config;
 import ir.mrstudios.databasecloner.managers.ConfigManager;
+import ir.mrstudios.databasecloner.managers.MongoClientManager;
+import ir.mrstudios.databasecloner.managers.SchedulerManager;
 import ir.mrstudios.databasecloner.managers.TelegramManager;
+import ir.mrstudios.databasecloner.managers.UploadQueueManager;
+import ir.mrstudios.databasecloner.models.ChunkStore;
 import ir.mrstudios.databasecloner.models.MongoBackupRestore;
 import ir.mrstudios.databasecloner.models.MySQLBackupRestore;
+import ir.mrstudios.databasecloner.models.SQLiteBackupRestore;
+import ir.mrstudios.databasecloner.utils.CodecUtil;
 import ir.mrstudios.databasecloner.utils.StringUtil;
 import lombok.Getter;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.Path;
 import java.util.Scanner;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -27,6 +36,10 @@ public class Main {
 
     private final ConfigManager configManager;
     private final TelegramManager telegramManager;
+    private final ChunkStore chunkStore;
+    private final UploadQueueManager uploadQueue;
+    private final SchedulerManager schedulerManager;
+    private MongoClientManager mongoClientManager;
 
     public static void main(String[] args) {
         final Scanner scanner = new Scanner(System.in);
@@ -51,14 +64,39 @@ public class Main {
         instance = this;
         this.configManager = new ConfigManager();
         this.telegramManager = new TelegramManager();
+        this.chunkStore = this.openRepository();
+        this.uploadQueue = this.openUploadQueue();
+        this.schedulerManager = new SchedulerManager(
+                Config.SCHEDULER_MAX_CONCURRENT.getAs(Integer.class),
+                Config.SCHEDULER_MAX_PER_HOST.getAs(Integer.class),
+                TimeUnit.SECONDS.toMillis(Config.SCHEDULER_JITTER.getAs(Long.class))
+        );
+
+        final long statusMinutes = Config.UPLOAD_QUEUE_STATUS_INTERVAL.getAs(Long.class);
+        if (this.uploadQueue != null && statusMinutes > 0) {
+            this.schedulerManager.every(
+                    TimeUnit.MINUTES.toMillis(statusMinutes), () -> System.out.println(this.uploadQueue.status())
+            );
+        }
 
         if (Config.SQLITE_ENABLE.getAs(Boolean.class)) {
             final int intervalMinutes = Config.SQLITE_INTERVAL.getAs(Integer.class);
             final String outputPath = Config.SQLITE_PATH.getAs(String.class);
+            final String cron = Config.SQLITE_CRON.getAs(String.class);
+            final Codec codec = this.chunkStore != null ? new NoneCodec() : CodecUtil.create(
+                    Config.SQLITE_CODEC.getAs(String.class),
+                    Config.SQLITE_COMPRESSION_LEVEL.getAs(Integer.class),
+                    false
+            );
+            final boolean incremental = Config.SQLITE_INCREMENTAL.getAs(Boolean.class);
+            final long fullIntervalMillis = TimeUnit.MINUTES.toMillis(Config.SQLITE_FULL_INTERVAL.getAs(Long.class));
 
             for (String path : this.configManager.getSettingsYaml().getStringList("sqlite.from-paths")) {
+                final SQLiteBackupRestore backupRestore = new SQLiteBackupRestore(path);
+                backupRestore.setCodec(codec);
 
-                Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
+                // Backups only compete for the local disk.
+                this.schedulerManager.schedule("sqlite " + path, "local", cron, intervalMinutes, () -> {
                     final File sourceFile = new File(path);
                     if (!sourceFile.exists()) {
                         System.out.println("❌ File does not exist.");
@@ -67,22 +105,32 @@ public class Main {
 
                     final String[] split = sourceFile.getName().split("\\.");
                     final String fileExtension = split[split.length - 1];
-                    final String fileName = outputPath + File.separator + sourceFile.getName()
-                            .replace("." + fileExtension,
-                                    "-" + StringUtil.timeNow() + "." + fileExtension
-                            );
-
-                    final File copiedFile = new File(fileName);
-                    copiedFile.getParentFile().mkdirs();
+                    final String baseName = outputPath + File.separator + sourceFile.getName()
+                            .replace("." + fileExtension, "");
+                    final String timeNow = StringUtil.timeNow();
+                    String fileName = baseName + "-" + timeNow + "." + fileExtension + codec.getExtension();
+                    new File(fileName).getParentFile().mkdirs();
+                    boolean complete = false;
 
                     try {
-                        Files.copy(sourceFile.toPath(), copiedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                    } catch (IOException e) {
+                        if (incremental) {
+                            fileName = backupRestore.incrementalBackup(
+                                    fileName,
+                                    baseName + "-" + timeNow + ".delta",
+                                    Path.of(baseName + ".state.properties"),
+                                    Path.of(baseName + ".last." + fileExtension),
+                                    fullIntervalMillis
+                            );
+                        } else {
+                            backupRestore.backup(fileName);
+                        }
+                        complete = true;
+                    } catch (Exception e) {
                         System.err.println("❌ Backup failed: " + e.getMessage());
                     }
 
-                    this.telegramManager.sendBackup(copiedFile);
-                }, 0, intervalMinutes, TimeUnit.MINUTES);
+                    this.deliver(new File(fileName), null, complete);
+                });
             }
         }
 
@@ -91,29 +139,64 @@ public class Main {
             final int threads = Config.MONGO_THREADS.getAs(Integer.class);
             final String outputPath = Config.MONGO_PATH.getAs(String.class);
             final int intervalMinutes = Config.MONGO_INTERVAL.getAs(Integer.class);
+            final String cron = Config.MONGO_CRON.getAs(String.class);
+            final String host = mongoHost(uri);
+            final boolean streaming = Config.MONGO_STREAMING.getAs(Boolean.class);
+            final Codec codec = this.chunkStore != null ? new NoneCodec() : CodecUtil.create(
+                    Config.MONGO_CODEC.getAs(String.class),
+                    Config.MONGO_COMPRESSION_LEVEL.getAs(Integer.class),
+                    Config.MONGO_ZSTD_LONG.getAs(Boolean.class)
+            );
+            final int blockSize = Config.MONGO_BLOCK_SIZE.getAs(Integer.class) * 1024;
+            final long partitionSize = Config.MONGO_PARTITION_SIZE.getAs(Long.class) * 1024 * 1024;
+            final boolean incremental = Config.MONGO_INCREMENTAL.getAs(Boolean.class);
+            final long fullIntervalMillis = TimeUnit.MINUTES.toMillis(Config.MONGO_FULL_INTERVAL.getAs(Long.class));
+            final int batchSize = Config.MONGO_BATCH_SIZE.getAs(Integer.class);
+            // Created once and shared by every database and run, the executor is bounded by mongo.threads.
             final ExecutorService executor = Executors.newFixedThreadPool(threads);
+            this.mongoClientManager = new MongoClientManager(
+                    Config.MONGO_POOL_SIZE.getAs(Integer.class),
+                    Config.MONGO_READ_PREFERENCE.getAs(String.class)
+            );
+            Runtime.getRuntime().addShutdownHook(new Thread(this.mongoClientManager::close));
 
             for (String dbName : this.configManager.getSettingsYaml().getStringList("mongo.database-names")) {
-                final MongoBackupRestore backupRestore = new MongoBackupRestore(uri, dbName, executor);
-
-                Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
-                    final String fileName = outputPath.replace("%name%", dbName)
-                                                    .replace(".gz", "")
-                                            + "-" + StringUtil.timeNow() + ".gz";
+                final MongoBackupRestore backupRestore = new MongoBackupRestore(
+                        this.mongoClientManager, uri, dbName, executor
+                );
+                backupRestore.setStreaming(streaming);
+                backupRestore.setCodec(codec);
+                backupRestore.setBlockSize(blockSize);
+                backupRestore.setPartitionSize(partitionSize);
+                backupRestore.setBatchSize(batchSize);
+
+                this.schedulerManager.schedule("mongo " + dbName, host, cron, intervalMinutes, () -> {
+                    final String baseName = StringUtil.stripBackupExtension(outputPath.replace("%name%", dbName));
+                    final String timeNow = StringUtil.timeNow();
+                    String fileName = baseName + "-" + timeNow + backupRestore.getFileExtension();
+                    final UploadQueueManager.PartUpload upload = this.startUpload(fileName);
+                    backupRestore.setPartListener(upload);
+                    boolean complete = false;
                     try {
-
-                        backupRestore.backup(fileName);
+                        if (incremental) {
+                            fileName = backupRestore.incrementalBackup(
+                                    baseName + "-" + timeNow,
+                                    Path.of(baseName + ".state.json"),
+                                    fullIntervalMillis
+                            );
+                        } else {
+                            backupRestore.backup(fileName);
+                        }
+                        complete = true;
                     } catch (Exception e) {
                         System.err.println("❌ Backup failed: " + e.getMessage());
                     }
 
-                    this.telegramManager.sendBackup(new File(fileName));
-                }, 0, intervalMinutes, TimeUnit.MINUTES);
+                    this.deliver(new File(fileName), upload, complete);
+                });
             }
 
-            System.out.println(
-                    "✅ Auto-backup mongo started. Every " + intervalMinutes + " minutes a backup will be created."
-            );
+            System.out.println("✅ Auto-backup mongo started.");
             System.out.println("Press CTRL+C to stop.");
         }
 
@@ -125,6 +208,21 @@ public class Main {
             final int threads = Config.MYSQL_THREADS.getAs(Integer.class);
             final String outputPath = Config.MYSQL_PATH.getAs(String.class);
             final int intervalMinutes = Config.MYSQL_INTERVAL.getAs(Integer.class);
+            final String cron = Config.MYSQL_CRON.getAs(String.class);
+            final Codec codec = this.chunkStore != null ? new NoneCodec() : CodecUtil.create(
+                    Config.MYSQL_CODEC.getAs(String.class),
+                    Config.MYSQL_COMPRESSION_LEVEL.getAs(Integer.class),
+                    Config.MYSQL_ZSTD_LONG.getAs(Boolean.class)
+            );
+            final int blockSize = Config.MYSQL_BLOCK_SIZE.getAs(Integer.class) * 1024;
+            final int fetchSize = Config.MYSQL_FETCH_SIZE.getAs(Integer.class);
+            final long chunkRows = Config.MYSQL_CHUNK_ROWS.getAs(Long.class);
+            final boolean globalReadLock = Config.MYSQL_GLOBAL_READ_LOCK.getAs(Boolean.class);
+            final String format = Config.MYSQL_FORMAT.getAs(String.class);
+            // TSV backups are a directory of per-table files, so they get no file extension.
+            final String extension = format.equalsIgnoreCase("tsv") ? "" : ".sql" + codec.getExtension();
+            final boolean incremental = Config.MYSQL_INCREMENTAL.getAs(Boolean.class);
+            final long fullIntervalMillis = TimeUnit.MINUTES.toMillis(Config.MYSQL_FULL_INTERVAL.getAs(Long.class));
             final ExecutorService executor = Executors.newFixedThreadPool(threads);
 
             for (String dbName : this.configManager.getSettingsYaml().getStringList("mysql.database-names")) {
@@ -137,37 +235,148 @@ public class Main {
                         threads,
                         executor
                 );
-
-                Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
-                    final String fileName = outputPath.replace("%name%", dbName)
-                                                    .replace(".sql", "")
-                                            + "-" + StringUtil.timeNow() + ".sql";
+                backupRestore.setCodec(codec);
+                backupRestore.setBlockSize(blockSize);
+                backupRestore.setFetchSize(fetchSize);
+                backupRestore.setChunkRows(chunkRows);
+                backupRestore.setGlobalReadLock(globalReadLock);
+                backupRestore.setFormat(format);
+
+                this.schedulerManager.schedule("mysql " + dbName, host + ":" + port, cron, intervalMinutes, () -> {
+                    final String baseName = StringUtil.stripBackupExtension(outputPath.replace("%name%", dbName));
+                    final String timeNow = StringUtil.timeNow();
+                    String fileName = baseName + "-" + timeNow + extension;
+                    final UploadQueueManager.PartUpload upload = this.startUpload(fileName);
+                    backupRestore.setPartListener(upload);
+                    boolean complete = false;
                     try {
-
                         backupRestore.testConnection();
-                        backupRestore.backup(fileName);
+                        if (incremental) {
+                            fileName = backupRestore.incrementalBackup(
+                                    fileName,
+                                    baseName + "-" + timeNow + ".delta",
+                                    Path.of(baseName + ".state.properties"),
+                                    fullIntervalMillis
+                            );
+                        } else {
+                            backupRestore.backup(fileName);
+                        }
+                        complete = true;
                     } catch (Exception e) {
                         System.err.println("❌ Backup failed: " + e.getMessage());
                     }
 
-                    this.telegramManager.sendBackup(new File(fileName));
-                }, 0, intervalMinutes, TimeUnit.MINUTES);
+                    this.deliver(new File(fileName), upload, complete);
+                });
             }
 
-            System.out.println(
-                    "✅ Auto-backup mysql started. Every " + intervalMinutes + " minutes a backup will be created."
-            );
+            System.out.println("✅ Auto-backup mysql started.");
             System.out.println("Press CTRL+C to stop.");
         }
     }
 
+    private ChunkStore openRepository() {
+        if (!Config.REPOSITORY_ENABLE.getAs(Boolean.class)) return null;
+
+        try {
+            return new ChunkStore(
+                    Path.of(Config.REPOSITORY_PATH.getAs(String.class)),
+                    CodecUtil.create(
+                            Config.REPOSITORY_CODEC.getAs(String.class),
+                            Config.REPOSITORY_COMPRESSION_LEVEL.getAs(Integer.class),
+                            false
+                    ),
+                    Config.REPOSITORY_CHUNK_SIZE.getAs(Integer.class) * 1024
+            );
+        } catch (IOException e) {
+            System.err.println("❌ Couldn't open backup repository, backups are kept as plain files: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private UploadQueueManager openUploadQueue() {
+        if (!this.telegramManager.isEnabled()) return null;
+
+        try {
+            return new UploadQueueManager(
+                    this.telegramManager,
+                    Path.of(Config.UPLOAD_QUEUE_PATH.getAs(String.class)),
+                    Config.TELEGRAM_UPLOAD_THREADS.getAs(Integer.class),
+                    Config.TELEGRAM_PART_SIZE.getAs(Long.class) * 1024 * 1024,
+                    Config.UPLOAD_QUEUE_MAX_ATTEMPTS.getAs(Integer.class)
+            );
+        } catch (IOException e) {
+            System.err.println("❌ Couldn't open upload queue, backups won't be sent: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private UploadQueueManager.PartUpload startUpload(String fileName) {
+        // The repository needs the whole file to chunk it, so splitting while writing is only for plain backups.
+        if (this.uploadQueue == null || this.chunkStore != null) return null;
+        return this.uploadQueue.startUpload(new File(fileName).getName());
+    }
+
+    private void deliver(File file, UploadQueueManager.PartUpload upload, boolean complete) {
+        // Parts were queued while the backup was written, an incremental delta still arrives as a whole file.
+        if (upload != null && upload.hasParts()) {
+            upload.finish(complete);
+            return;
+        }
+
+        // A failed run leaves a truncated file behind, it is kept for inspection but never shipped as a backup.
+        if (!complete) {
+            System.err.println("⚠️ Not delivering " + file.getName() + ", the backup did not complete.");
+            return;
+        }
+        this.deliver(file);
+    }
+
+    private void deliver(File file) {
+        if (this.chunkStore == null || !file.exists()) {
+            if (this.uploadQueue != null && file.exists()) this.uploadQueue.enqueue(file, true);
+            return;
+        }
+
+        try {
+            final ChunkStore.StoreResult result = this.chunkStore.store(file.toPath(), file.getName());
+            deleteRecursively(file);
+
+            // Only the manifest and the chunks this run added have to leave the machine.
+            if (this.uploadQueue == null) return;
+            this.uploadQueue.enqueue(result.manifest().toFile(), false);
+            if (result.pack() != null) this.uploadQueue.enqueue(result.pack().toFile(), false);
+        } catch (IOException e) {
+            System.err.println("❌ Couldn't store backup in repository: " + e.getMessage());
+            if (this.uploadQueue != null) this.uploadQueue.enqueue(file, true);
+        }
+    }
+
+    private static String mongoHost(String uri) {
+        // Host list of the connection string, without credentials, database and options.
+        String hosts = uri.substring(uri.indexOf("://") + 3);
+        hosts = hosts.substring(hosts.lastIndexOf('@') + 1);
+        final int end = hosts.indexOf('/') >= 0 ? hosts.indexOf('/') : hosts.indexOf('?');
+        return end >= 0 ? hosts.substring(0, end) : hosts;
+    }
+
+    private static void deleteRecursively(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) deleteRecursively(child);
+        }
+        file.delete();
+    }
+
     private static void console() {
         final Scanner scanner = new Scanner(System.in);
 
         System.out.println("=== Database Cloner ===");
         System.out.println("1️⃣ MongoDB Database");
         System.out.println("2️⃣ MySQL Database");
-        System.out.print("👉 Select option (1 or 2): ");
+        System.out.println("3️⃣ Backup Repository");
+        System.out.println("4️⃣ SQLite Database");
+        System.out.print("👉 Select option (1, 2, 3 or 4): ");
 
         final int choice = Integer.parseInt(scanner.nextLine());
 
@@ -175,6 +384,10 @@ public class Main {
             new MongoCloner();
         } else if (choice == 2) {
             new MySQLCloner();
+        } else if (choice == 3) {
+            new RepositoryCloner();
+        } else if (choice == 4) {
+            new SQLiteCloner();
         } else {
             System.out.println("❌ Invalid choice. Exiting...");
         }
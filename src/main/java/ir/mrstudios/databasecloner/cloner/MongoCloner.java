@@ -1,8 +1,11 @@
 package ir.mrstudios.databasecloner.cloner;
 
+import ir.mrstudios.databasecloner.models.CodecBenchmark;
 import ir.mrstudios.databasecloner.models.MongoBackupRestore;
 import ir.mrstudios.databasecloner.utils.StringUtil;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -19,7 +22,9 @@ public class MongoCloner {
         System.out.println("=== Mongo Database Cloner ===");
         System.out.println("1️⃣ Backup Database");
         System.out.println("2️⃣ Restore Database");
-        System.out.print("👉 Select option (1 or 2): ");
+        System.out.println("3️⃣ Benchmark Codecs");
+        System.out.println("4️⃣ Clone Database");
+        System.out.print("👉 Select option (1, 2, 3 or 4): ");
 
         final int choice = Integer.parseInt(scanner.nextLine());
 
@@ -27,6 +32,10 @@ public class MongoCloner {
             this.backup();
         } else if (choice == 2) {
             this.restore();
+        } else if (choice == 3) {
+            this.benchmark();
+        } else if (choice == 4) {
+            this.cloneDatabase();
         } else {
             System.out.println("❌ Invalid choice. Exiting...");
         }
@@ -44,18 +53,29 @@ public class MongoCloner {
         System.out.print("⚙️ Enter Thread Pool Size: ");
         final int threads = Integer.parseInt(scanner.nextLine());
 
-        System.out.print("💾 Enter Backup File Path (to restore from, e.g. backup.gz): ");
+        System.out.print("💾 Enter Backup File Path (to restore from, e.g. backup.archive): ");
         final String backupPath = scanner.nextLine();
 
+        System.out.print("🔁 Enter Delta File Paths to replay after it, in order (comma separated, empty for none): ");
+        final List<String> deltaPaths = Arrays.stream(scanner.nextLine().split(","))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .toList();
+
         System.out.print("🗑️ Drop existing collections before restore? (yes/no): ");
         final boolean dropExisting = scanner.nextLine().trim().equalsIgnoreCase("yes");
 
+        System.out.print("⚡ Bypass document validation during restore? (yes/no): ");
+        final boolean bypassValidation = scanner.nextLine().trim().equalsIgnoreCase("yes");
+
         final ExecutorService executor = Executors.newFixedThreadPool(threads);
 
         final MongoBackupRestore backupRestore = new MongoBackupRestore(uri, dbName, executor);
+        backupRestore.setBypassDocumentValidation(bypassValidation);
 
         try {
             backupRestore.restore(backupPath, dropExisting);
+            backupRestore.replayDeltas(deltaPaths);
             System.out.println("✅ Restore completed successfully!");
         } catch (Exception e) {
             System.err.println("❌ Restore failed: " + e.getMessage());
@@ -64,6 +84,80 @@ public class MongoCloner {
         }
     }
 
+    private void cloneDatabase() {
+        final Scanner scanner = new Scanner(System.in);
+
+        System.out.print("🔗 Enter Source MongoDB Connection URI: ");
+        final String sourceUri = scanner.nextLine();
+
+        System.out.print("📂 Enter Source Database Name: ");
+        final String sourceDbName = scanner.nextLine();
+
+        System.out.print("🎯 Enter Target MongoDB Connection URI: ");
+        final String targetUri = scanner.nextLine();
+
+        System.out.print("📂 Enter Target Database Name (empty for same name): ");
+        final String targetInput = scanner.nextLine().trim();
+        final String targetDbName = targetInput.isEmpty() ? sourceDbName : targetInput;
+
+        System.out.print("⚙️ Enter Thread Pool Size: ");
+        final int threads = Integer.parseInt(scanner.nextLine());
+
+        System.out.print("🗑️ Drop existing collections on target? (yes/no): ");
+        final boolean dropExisting = scanner.nextLine().trim().equalsIgnoreCase("yes");
+
+        System.out.print("⚡ Bypass document validation on target? (yes/no): ");
+        final boolean bypassValidation = scanner.nextLine().trim().equalsIgnoreCase("yes");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        final MongoBackupRestore backupRestore = new MongoBackupRestore(sourceUri, sourceDbName, executor);
+        backupRestore.setBypassDocumentValidation(bypassValidation);
+
+        try {
+            backupRestore.cloneTo(targetUri, targetDbName, dropExisting);
+            System.out.println("✅ Clone completed successfully!");
+        } catch (Exception e) {
+            System.err.println("❌ Clone failed: " + e.getMessage());
+        } finally {
+            backupRestore.shutdown();
+        }
+    }
+
+    private void benchmark() {
+        final Scanner scanner = new Scanner(System.in);
+
+        System.out.print("🔗 Enter MongoDB Connection URI: ");
+        final String uri = scanner.nextLine();
+
+        System.out.print("📂 Enter Database Name: ");
+        final String dbName = scanner.nextLine();
+
+        System.out.print("📏 Enter Sample Size in MB (default 64): ");
+        final String sizeInput = scanner.nextLine();
+        final int sampleMegabytes = sizeInput.isEmpty() ? 64 : Integer.parseInt(sizeInput);
+
+        final MongoBackupRestore backupRestore = new MongoBackupRestore(
+                uri, dbName, Executors.newSingleThreadExecutor()
+        );
+
+        try {
+            final byte[] sample = backupRestore.sampleDocuments(sampleMegabytes * 1024L * 1024L);
+            if (sample.length == 0) {
+                System.out.println("⚠️ Warning: No documents found in the database.");
+                return;
+            }
+
+            final CodecBenchmark benchmark = new CodecBenchmark();
+            benchmark.run(sample);
+            benchmark.runEncoding(sample);
+        } catch (Exception e) {
+            System.err.println("❌ Benchmark failed: " + e.getMessage());
+        } finally {
+            backupRestore.shutdown();
+        }
+    }
+
     private void backup() {
         final Scanner scanner = new Scanner(System.in);
 
@@ -76,7 +170,7 @@ public class MongoCloner {
         System.out.print("⚙️ Enter Thread Pool Size: ");
         final int threads = Integer.parseInt(scanner.nextLine());
 
-        System.out.print("💾 Enter Backup Output File Path (e.g. backup.gz): ");
+        System.out.print("💾 Enter Backup Output File Path (e.g. backup.archive): ");
         final String outputPath = scanner.nextLine();
 
         final ExecutorService executor = Executors.newFixedThreadPool(threads);
@@ -84,8 +178,8 @@ public class MongoCloner {
         final MongoBackupRestore backupRestore = new MongoBackupRestore(uri, dbName, executor);
 
         try {
-            final String fileName = outputPath.replace(".gz", "")
-                                    + "-" + StringUtil.timeNow() + ".gz";
+            final String fileName = StringUtil.stripBackupExtension(outputPath)
+                                    + "-" + StringUtil.timeNow() + backupRestore.getFileExtension();
 
             backupRestore.backup(fileName);
         } catch (Exception e) {
@@ -3,6 +3,10 @@ package ir.mrstudios.databasecloner.cloner;
 import ir.mrstudios.databasecloner.models.MySQLBackupRestore;
 import ir.mrstudios.databasecloner.utils.StringUtil;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -10,7 +14,137 @@ import java.util.concurrent.Executors;
 public class MySQLCloner {
 
     public MySQLCloner() {
-        this.backup();
+        this.start();
+    }
+
+    private void start() {
+        final Scanner scanner = new Scanner(System.in);
+
+        System.out.println("=== MySQL Database Cloner ===");
+        System.out.println("1️⃣ Backup Database");
+        System.out.println("2️⃣ Restore Database");
+        System.out.println("3️⃣ Benchmark Encoder");
+        System.out.print("👉 Select option (1, 2 or 3): ");
+
+        final int choice = Integer.parseInt(scanner.nextLine());
+
+        if (choice == 1) {
+            this.backup();
+        } else if (choice == 2) {
+            this.restore();
+        } else if (choice == 3) {
+            this.benchmark();
+        } else {
+            System.out.println("❌ Invalid choice. Exiting...");
+        }
+    }
+
+    private void benchmark() {
+        final Scanner scanner = new Scanner(System.in);
+
+        System.out.print("🔗 Enter MySQL Host (e.g. localhost): ");
+        final String host = scanner.nextLine();
+
+        System.out.print("🔢 Enter MySQL Port (default 3306): ");
+        final String portInput = scanner.nextLine();
+        final int port = portInput.isEmpty() ? 3306 : Integer.parseInt(portInput);
+
+        System.out.print("📂 Enter Database Name: ");
+        final String dbName = scanner.nextLine();
+
+        System.out.print("👤 Enter MySQL Username: ");
+        final String user = scanner.nextLine();
+
+        System.out.print("🔑 Enter MySQL Password: ");
+        final String pass = scanner.nextLine();
+
+        System.out.print("📋 Enter Table Name: ");
+        final String table = scanner.nextLine();
+
+        final MySQLBackupRestore backupRestore = new MySQLBackupRestore(
+                host,
+                port,
+                dbName,
+                user,
+                pass,
+                1,
+                Executors.newSingleThreadExecutor()
+        );
+
+        try {
+            backupRestore.benchmarkEncoder(table);
+        } catch (Exception e) {
+            System.err.println("❌ Benchmark failed: " + e.getMessage());
+        } finally {
+            backupRestore.shutdown();
+        }
+    }
+
+    private void restore() {
+        final Scanner scanner = new Scanner(System.in);
+
+        System.out.print("🔗 Enter MySQL Host (e.g. localhost): ");
+        final String host = scanner.nextLine();
+
+        System.out.print("🔢 Enter MySQL Port (default 3306): ");
+        final String portInput = scanner.nextLine();
+        final int port = portInput.isEmpty() ? 3306 : Integer.parseInt(portInput);
+
+        System.out.print("📂 Enter Database Name: ");
+        final String dbName = scanner.nextLine();
+
+        System.out.print("👤 Enter MySQL Username: ");
+        final String user = scanner.nextLine();
+
+        System.out.print("🔑 Enter MySQL Password: ");
+        final String pass = scanner.nextLine();
+
+        System.out.print("⚙️ Enter Thread Pool Size: ");
+        final int threads = Integer.parseInt(scanner.nextLine());
+
+        System.out.print("💾 Enter Backup File or TSV Directory Path (to restore from, e.g. backup.sql): ");
+        final String backupPath = scanner.nextLine();
+
+        System.out.print("🔁 Enter Delta File Paths to replay after it, in order (comma separated, empty for none): ");
+        final List<String> deltaPaths = Arrays.stream(scanner.nextLine().split(","))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .toList();
+
+        long stopAtMillis = Long.MAX_VALUE;
+        if (!deltaPaths.isEmpty()) {
+            System.out.print("⏱️ Replay up to (yyyy-MM-dd HH:mm:ss, empty for everything): ");
+            final String stopAt = scanner.nextLine().trim();
+            if (!stopAt.isEmpty()) {
+                stopAtMillis = LocalDateTime.parse(stopAt.replace(' ', 'T'))
+                        .atZone(ZoneId.systemDefault())
+                        .toInstant()
+                        .toEpochMilli();
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        final MySQLBackupRestore backupRestore = new MySQLBackupRestore(
+                host,
+                port,
+                dbName,
+                user,
+                pass,
+                threads,
+                executor
+        );
+
+        try {
+            backupRestore.testConnection();
+            backupRestore.restore(backupPath);
+            if (!deltaPaths.isEmpty()) backupRestore.replayDeltas(deltaPaths, stopAtMillis);
+            System.out.println("✅ Restore completed successfully!");
+        } catch (Exception e) {
+            System.err.println("❌ Restore failed: " + e.getMessage());
+        } finally {
+            backupRestore.shutdown();
+        }
     }
 
     private void backup() {
@@ -38,6 +172,9 @@ public class MySQLCloner {
         System.out.print("💾 Enter Backup Output File Path (e.g. backup.sql): ");
         final String outputPath = scanner.nextLine();
 
+        System.out.print("📄 Enter Output Format (sql/tsv, default sql): ");
+        final boolean tsv = scanner.nextLine().trim().equalsIgnoreCase("tsv");
+
         final ExecutorService executor = Executors.newFixedThreadPool(threads);
 
         final MySQLBackupRestore backupRestore = new MySQLBackupRestore(
@@ -50,9 +187,11 @@ public class MySQLCloner {
                 executor
         );
 
+        backupRestore.setFormat(tsv ? "tsv" : "sql");
+
         try {
             final String fileName = outputPath.replace(".sql", "")
-                                    + "-" + StringUtil.timeNow() + ".sql";
+                                    + "-" + StringUtil.timeNow() + (tsv ? "" : ".sql");
 
             backupRestore.testConnection();
             backupRestore.backup(fileName);
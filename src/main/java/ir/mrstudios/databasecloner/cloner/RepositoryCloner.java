@@ -0,0 +1,34 @@
+package ir.mrstudios.databasecloner.cloner;
+
+import ir.mrstudios.databasecloner.models.ChunkStore;
+
+import java.nio.file.Path;
+import java.util.Scanner;
+
+public class RepositoryCloner {
+
+    public RepositoryCloner() {
+        this.restore();
+    }
+
+    private void restore() {
+        final Scanner scanner = new Scanner(System.in);
+
+        System.out.println("=== Backup Repository ===");
+        System.out.print("📦 Enter Repository Path (default repository): ");
+        final String rootInput = scanner.nextLine().trim();
+        final Path root = Path.of(rootInput.isEmpty() ? "repository" : rootInput);
+
+        System.out.print("📄 Enter Backup Name (manifest file name without .manifest): ");
+        final String runName = scanner.nextLine().trim();
+
+        System.out.print("💾 Enter Output Path (file, or directory for TSV backups): ");
+        final String outputPath = scanner.nextLine().trim();
+
+        try {
+            ChunkStore.restore(root, runName, Path.of(outputPath));
+        } catch (Exception e) {
+            System.err.println("❌ Restore failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ir.mrstudios.databasecloner.cloner;
+
+import ir.mrstudios.databasecloner.models.SQLiteBackupRestore;
+import ir.mrstudios.databasecloner.utils.CodecUtil;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+public class SQLiteCloner {
+
+    public SQLiteCloner() {
+        this.start();
+    }
+
+    private void start() {
+        final Scanner scanner = new Scanner(System.in);
+
+        System.out.println("=== SQLite Database Cloner ===");
+        System.out.println("1️⃣ Backup Database");
+        System.out.println("2️⃣ Restore Database");
+        System.out.print("👉 Select option (1 or 2): ");
+
+        final int choice = Integer.parseInt(scanner.nextLine());
+
+        if (choice == 1) {
+            this.backup();
+        } else if (choice == 2) {
+            this.restore();
+        } else {
+            System.out.println("❌ Invalid choice. Exiting...");
+        }
+    }
+
+    private void backup() {
+        final Scanner scanner = new Scanner(System.in);
+
+        System.out.print("📂 Enter SQLite Database Path: ");
+        final String databasePath = scanner.nextLine().trim();
+
+        System.out.print("🗜️ Enter Codec (none, gzip, zstd or lz4, default none): ");
+        final String codecInput = scanner.nextLine().trim();
+
+        System.out.print("💾 Enter Backup Output File Path (e.g. backup.db): ");
+        final String outputPath = scanner.nextLine().trim();
+
+        final SQLiteBackupRestore backupRestore = new SQLiteBackupRestore(databasePath);
+        backupRestore.setCodec(CodecUtil.byName(codecInput.isEmpty() ? "none" : codecInput));
+
+        try {
+            backupRestore.backup(outputPath);
+            System.out.println("✅ Backup completed successfully!");
+        } catch (Exception e) {
+            System.err.println("❌ Backup failed: " + e.getMessage());
+        }
+    }
+
+    private void restore() {
+        final Scanner scanner = new Scanner(System.in);
+
+        System.out.print("💾 Enter Backup File Path (to restore from): ");
+        final String backupPath = scanner.nextLine().trim();
+
+        System.out.print("🔁 Enter Delta File Paths to apply after it, in order (comma separated, empty for none): ");
+        final List<String> deltaPaths = Arrays.stream(scanner.nextLine().split(","))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .toList();
+
+        System.out.print("📂 Enter Restored Database Path (overwritten, keep the database closed): ");
+        final String targetPath = scanner.nextLine().trim();
+
+        try {
+            SQLiteBackupRestore.restore(targetPath, backupPath, deltaPaths);
+            System.out.println("✅ Restore completed successfully!");
+        } catch (Exception e) {
+            System.err.println("❌ Restore failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ir.mrstudios.databasecloner.codecs;
+
+import java.io.*;
+
+public interface Codec {
+
+    String getName();
+
+    String getExtension();
+
+    OutputStream newOutputStream(OutputStream outputStream) throws IOException;
+
+    InputStream newInputStream(InputStream inputStream) throws IOException;
+
+    default byte[] compress(byte[] data, int offset, int length) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 3 + 64);
+        try (OutputStream outputStream = this.newOutputStream(compressed)) {
+            outputStream.write(data, offset, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    default byte[] compress(ByteArrayOutputStream data) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.size() / 3 + 64);
+        try (OutputStream outputStream = this.newOutputStream(compressed)) {
+            data.writeTo(outputStream);
+        }
+        return compressed.toByteArray();
+    }
+
+    default byte[] decompress(byte[] data, int rawSize) throws IOException {
+        final byte[] raw = new byte[rawSize];
+        try (DataInputStream dataInputStream = new DataInputStream(
+                this.newInputStream(new ByteArrayInputStream(data))
+        )) {
+            dataInputStream.readFully(raw);
+        }
+        return raw;
+    }
+}
@@ -0,0 +1,38 @@
+package ir.mrstudios.databasecloner.codecs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class GzipCodec implements Codec {
+
+    private final int level;
+
+    public GzipCodec(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public String getName() {
+        return "gzip";
+    }
+
+    @Override
+    public String getExtension() {
+        return ".gz";
+    }
+
+    @Override
+    public OutputStream newOutputStream(OutputStream outputStream) throws IOException {
+        return new GZIPOutputStream(outputStream, 1 << 16) {{
+            def.setLevel(GzipCodec.this.level);
+        }};
+    }
+
+    @Override
+    public InputStream newInputStream(InputStream inputStream) throws IOException {
+        return new GZIPInputStream(inputStream, 1 << 16);
+    }
+}
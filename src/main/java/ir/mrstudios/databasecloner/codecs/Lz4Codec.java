@@ -0,0 +1,31 @@
+package ir.mrstudios.databasecloner.codecs;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public class Lz4Codec implements Codec {
+
+    @Override
+    public String getName() {
+        return "lz4";
+    }
+
+    @Override
+    public String getExtension() {
+        return ".lz4";
+    }
+
+    @Override
+    public OutputStream newOutputStream(OutputStream outputStream) throws IOException {
+        return new LZ4FrameOutputStream(outputStream, LZ4FrameOutputStream.BLOCKSIZE.SIZE_4MB);
+    }
+
+    @Override
+    public InputStream newInputStream(InputStream inputStream) throws IOException {
+        return new LZ4FrameInputStream(inputStream);
+    }
+}
@@ -0,0 +1,27 @@
+package ir.mrstudios.databasecloner.codecs;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public class NoneCodec implements Codec {
+
+    @Override
+    public String getName() {
+        return "none";
+    }
+
+    @Override
+    public String getExtension() {
+        return "";
+    }
+
+    @Override
+    public OutputStream newOutputStream(OutputStream outputStream) {
+        return outputStream;
+    }
+
+    @Override
+    public InputStream newInputStream(InputStream inputStream) {
+        return inputStream;
+    }
+}
@@ -0,0 +1,44 @@
+package ir.mrstudios.databasecloner.codecs;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public class ZstdCodec implements Codec {
+
+    private static final int LONG_WINDOW_LOG = 27;
+    private static final int MAX_WINDOW_LOG = 31;
+
+    private final int level;
+    private final boolean longMode;
+
+    public ZstdCodec(int level, boolean longMode) {
+        this.level = level;
+        this.longMode = longMode;
+    }
+
+    @Override
+    public String getName() {
+        return "zstd";
+    }
+
+    @Override
+    public String getExtension() {
+        return ".zst";
+    }
+
+    @Override
+    public OutputStream newOutputStream(OutputStream outputStream) throws IOException {
+        final ZstdOutputStream zstdOutputStream = new ZstdOutputStream(outputStream, this.level);
+        if (this.longMode) zstdOutputStream.setLong(LONG_WINDOW_LOG);
+        return zstdOutputStream;
+    }
+
+    @Override
+    public InputStream newInputStream(InputStream inputStream) throws IOException {
+        return new ZstdInputStream(inputStream).setLongMax(MAX_WINDOW_LOG);
+    }
+}
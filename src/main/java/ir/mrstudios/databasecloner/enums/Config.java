@@ -17,6 +17,23 @@ public enum Config {
     TELEGRAM_ENABLE("telegram.enable"),
     TELEGRAM_TOKEN("telegram.token"),
     TELEGRAM_USER_ID("telegram.user-id"),
+    TELEGRAM_PART_SIZE("telegram.part-size", 45),
+    TELEGRAM_UPLOAD_THREADS("telegram.upload-threads", 3),
+    UPLOAD_QUEUE_PATH("telegram.queue-path", "upload-queue"),
+    UPLOAD_QUEUE_MAX_ATTEMPTS("telegram.max-attempts", 10),
+    UPLOAD_QUEUE_STATUS_INTERVAL("telegram.status-interval", 60),
+
+    //SCHEDULER
+    SCHEDULER_MAX_CONCURRENT("scheduler.max-concurrent", 2),
+    SCHEDULER_MAX_PER_HOST("scheduler.max-per-host", 1),
+    SCHEDULER_JITTER("scheduler.jitter", 60),
+
+    //REPOSITORY
+    REPOSITORY_ENABLE("repository.enable", false),
+    REPOSITORY_PATH("repository.path", "repository"),
+    REPOSITORY_CODEC("repository.codec", "zstd"),
+    REPOSITORY_COMPRESSION_LEVEL("repository.compression-level", 3),
+    REPOSITORY_CHUNK_SIZE("repository.chunk-size", 1024),
 
     //MONGO
     MONGO_ENABLE("mongo.enable"),
@@ -24,6 +41,18 @@ public enum Config {
     MONGO_THREADS("mongo.threads"),
     MONGO_PATH("mongo.path"),
     MONGO_INTERVAL("mongo.interval"),
+    MONGO_CRON("mongo.cron", ""),
+    MONGO_STREAMING("mongo.streaming", true),
+    MONGO_CODEC("mongo.codec", "gzip"),
+    MONGO_COMPRESSION_LEVEL("mongo.compression-level", 6),
+    MONGO_ZSTD_LONG("mongo.zstd-long", false),
+    MONGO_BLOCK_SIZE("mongo.block-size", 4096),
+    MONGO_PARTITION_SIZE("mongo.partition-size", 512),
+    MONGO_INCREMENTAL("mongo.incremental", false),
+    MONGO_FULL_INTERVAL("mongo.full-interval", 10080),
+    MONGO_POOL_SIZE("mongo.pool-size", 20),
+    MONGO_READ_PREFERENCE("mongo.read-preference", "secondaryPreferred"),
+    MONGO_BATCH_SIZE("mongo.batch-size", 1000),
 
     //MYSQL
     MYSQL_ENABLE("mysql.enable"),
@@ -34,17 +63,39 @@ public enum Config {
     MYSQL_THREADS("mysql.threads"),
     MYSQL_PATH("mysql.path"),
     MYSQL_INTERVAL("mysql.interval"),
+    MYSQL_CRON("mysql.cron", ""),
+    MYSQL_CODEC("mysql.codec", "none"),
+    MYSQL_COMPRESSION_LEVEL("mysql.compression-level", 6),
+    MYSQL_ZSTD_LONG("mysql.zstd-long", false),
+    MYSQL_BLOCK_SIZE("mysql.block-size", 1024),
+    MYSQL_FETCH_SIZE("mysql.fetch-size", 1000),
+    MYSQL_CHUNK_ROWS("mysql.chunk-rows", 1000000),
+    MYSQL_GLOBAL_READ_LOCK("mysql.global-read-lock", true),
+    MYSQL_FORMAT("mysql.format", "sql"),
+    MYSQL_INCREMENTAL("mysql.incremental", false),
+    MYSQL_FULL_INTERVAL("mysql.full-interval", 10080),
 
     //SQLITE
     SQLITE_ENABLE("sqlite.enable"),
     SQLITE_PATH("sqlite.path"),
-    SQLITE_INTERVAL("sqlite.interval");
+    SQLITE_INTERVAL("sqlite.interval"),
+    SQLITE_CRON("sqlite.cron", ""),
+    SQLITE_CODEC("sqlite.codec", "none"),
+    SQLITE_COMPRESSION_LEVEL("sqlite.compression-level", 6),
+    SQLITE_INCREMENTAL("sqlite.incremental", false),
+    SQLITE_FULL_INTERVAL("sqlite.full-interval", 10080);
 
     private Object value;
     private final String path;
+    private final Object defaultValue;
 
     Config(String path) {
+        this(path, null);
+    }
+
+    Config(String path, Object defaultValue) {
         this.path = path;
+        this.defaultValue = defaultValue;
         this.load();
     }
 
@@ -58,6 +109,7 @@ public enum Config {
 
     @SneakyThrows
     private void load() {
-        this.value = Main.getInstance().getConfigManager().getSettingsYaml().get(this.path);
+        final Object value = Main.getInstance().getConfigManager().getSettingsYaml().get(this.path);
+        this.value = value != null ? value : this.defaultValue;
     }
 }
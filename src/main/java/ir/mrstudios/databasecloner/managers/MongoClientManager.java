@@ -0,0 +1,48 @@
+package ir.mrstudios.databasecloner.managers;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MongoClientManager implements AutoCloseable {
+
+    private final Map<String, MongoClient> clients = new ConcurrentHashMap<>();
+    private final int maxPoolSize;
+    private final ReadPreference readPreference;
+
+    public MongoClientManager(int maxPoolSize, String readPreference) {
+        this.maxPoolSize = maxPoolSize;
+        this.readPreference = readPreference == null || readPreference.isBlank()
+                ? null
+                : ReadPreference.valueOf(readPreference);
+    }
+
+    public MongoClient get(String connectionUri) {
+        // One client per URI for the whole process, so scheduled runs reuse its pool, TLS sessions and topology.
+        return this.clients.computeIfAbsent(connectionUri, this::create);
+    }
+
+    private MongoClient create(String connectionUri) {
+        final MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(connectionUri));
+
+        if (this.maxPoolSize > 0) {
+            settings.applyToConnectionPoolSettings(pool -> pool.maxSize(this.maxPoolSize));
+        }
+        // Writes always go to the primary, the preference only moves the backup reads.
+        if (this.readPreference != null) settings.readPreference(this.readPreference);
+
+        return MongoClients.create(settings.build());
+    }
+
+    @Override
+    public void close() {
+        this.clients.values().forEach(MongoClient::close);
+        this.clients.clear();
+    }
+}
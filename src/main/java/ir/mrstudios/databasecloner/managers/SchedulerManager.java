@@ -0,0 +1,134 @@
+package ir.mrstudios.databasecloner.managers;
+
+import ir.mrstudios.databasecloner.utils.CronExpression;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SchedulerManager {
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "scheduler")
+    );
+    private final ExecutorService workers;
+    private final Semaphore globalPermits;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final int maxPerHost;
+    private final long jitterMillis;
+
+    private static final long SLOT_RETRY_MILLIS = 5000;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public SchedulerManager(int maxConcurrent, int maxPerHost, long jitterMillis) {
+        // Never more jobs are let through than there are workers, so the pool's queue can't grow.
+        this.workers = Executors.newFixedThreadPool(maxConcurrent, runnable -> new Thread(runnable, "backup-job"));
+        this.globalPermits = new Semaphore(maxConcurrent);
+        this.maxPerHost = maxPerHost;
+        this.jitterMillis = jitterMillis;
+    }
+
+    public void schedule(String name, String host, String cron, int intervalMinutes, Runnable task) {
+        final Job job = new Job(
+                name,
+                host,
+                cron == null || cron.isBlank() ? null : new CronExpression(cron),
+                TimeUnit.MINUTES.toMillis(Math.max(1, intervalMinutes)),
+                task
+        );
+
+        final long now = System.currentTimeMillis();
+        job.planned = job.cron != null ? job.cron.next(toLocal(now)).atZone(ZoneId.systemDefault())
+                .toInstant().toEpochMilli() : now;
+        final long delay = this.arm(job);
+
+        System.out.println("🕒 Scheduled " + name + " on " + host + " ("
+                           + (job.cron != null ? "cron " + job.cron : "every " + intervalMinutes + " minutes")
+                           + "), first run at " + toLocal(System.currentTimeMillis() + delay).format(TIME_FORMAT));
+    }
+
+    public void every(long periodMillis, Runnable task) {
+        // Light periodic work like status reports runs on the timer itself and never takes a job slot.
+        this.timer.scheduleAtFixedRate(task, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private long arm(Job job) {
+        // Jitter keeps jobs planned for the same moment from hitting the same hosts and disks at once.
+        final long jitter = this.jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(this.jitterMillis + 1) : 0;
+        final long delay = Math.max(0, job.planned - System.currentTimeMillis()) + jitter;
+        this.timer.schedule(() -> this.fire(job), delay, TimeUnit.MILLISECONDS);
+        return delay;
+    }
+
+    private void fire(Job job) {
+        // The next run is planned from the schedule, not from when this one ends, so long runs don't drift it.
+        final long now = System.currentTimeMillis();
+        if (job.cron != null) {
+            job.planned = job.cron.next(toLocal(Math.max(now, job.planned))).atZone(ZoneId.systemDefault())
+                    .toInstant().toEpochMilli();
+        } else {
+            while (job.planned <= now) job.planned += job.intervalMillis;
+        }
+        this.arm(job);
+
+        if (!job.running.compareAndSet(false, true)) {
+            System.out.println("⏭️ Skipping " + job.name + ", the previous run is still going.");
+            return;
+        }
+        this.tryStart(job, false);
+    }
+
+    private void tryStart(Job job, boolean waited) {
+        final Semaphore host = this.hostPermits.computeIfAbsent(job.host, key -> new Semaphore(this.maxPerHost));
+
+        if (this.globalPermits.tryAcquire()) {
+            if (host.tryAcquire()) {
+                this.workers.execute(() -> this.run(job, host));
+                return;
+            }
+            this.globalPermits.release();
+        }
+
+        // Waiting happens on the timer instead of a blocked worker, so a busy host never stalls the others.
+        if (!waited) System.out.println("⏳ " + job.name + " waits for a free slot on " + job.host + ".");
+        this.timer.schedule(() -> this.tryStart(job, true), SLOT_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(Job job, Semaphore host) {
+        try {
+            job.task.run();
+        } catch (Exception e) {
+            System.err.println("❌ Job " + job.name + " failed: " + e.getMessage());
+        } finally {
+            host.release();
+            this.globalPermits.release();
+            job.running.set(false);
+        }
+    }
+
+    private static LocalDateTime toLocal(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static class Job {
+        private final String name;
+        private final String host;
+        private final CronExpression cron;
+        private final long intervalMillis;
+        private final Runnable task;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private long planned;
+
+        private Job(String name, String host, CronExpression cron, long intervalMillis, Runnable task) {
+            this.name = name;
+            this.host = host;
+            this.cron = cron;
+            this.intervalMillis = intervalMillis;
+            this.task = task;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package ir.mrstudios.databasecloner.managers;
 
 import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.request.BaseRequest;
 import com.pengrad.telegrambot.request.SendDocument;
-import com.pengrad.telegrambot.response.SendResponse;
+import com.pengrad.telegrambot.request.SendMessage;
+import com.pengrad.telegrambot.response.BaseResponse;
 import ir.mrstudios.databasecloner.enums.Config;
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
 
 import java.io.File;
@@ -11,14 +14,32 @@ import java.net.Authenticator;
 import java.net.InetSocketAddress;
 import java.net.PasswordAuthentication;
 import java.net.Proxy;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 public class TelegramManager {
 
     private final TelegramBot telegramBot;
 
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long INITIAL_BACKOFF_MILLIS = 2000;
+    private static final long MAX_BACKOFF_MILLIS = 60000;
+
     public TelegramManager() {
-        if (Config.SOCKS5_ENABLE.getAs(Boolean.class) && Config.TELEGRAM_ENABLE.getAs(Boolean.class)) {
+        if (!Config.TELEGRAM_ENABLE.getAs(Boolean.class)) {
+            this.telegramBot = null;
+            return;
+        }
+
+        final int uploadThreads = Config.TELEGRAM_UPLOAD_THREADS.getAs(Integer.class);
+        // One client for every request, so parallel part uploads share pooled connections through the proxy.
+        final OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(120, TimeUnit.SECONDS)
+                .writeTimeout(120, TimeUnit.SECONDS)
+                .connectionPool(new ConnectionPool(uploadThreads, 5, TimeUnit.MINUTES));
+
+        if (Config.SOCKS5_ENABLE.getAs(Boolean.class)) {
             final Proxy proxy = new Proxy(
                     Proxy.Type.SOCKS,
                     new InetSocketAddress(
@@ -41,35 +62,65 @@ public class TelegramManager {
                 });
             }
 
-            final OkHttpClient client = new OkHttpClient.Builder()
-                    .connectTimeout(30, TimeUnit.SECONDS)
-                    .readTimeout(30, TimeUnit.SECONDS)
-                    .writeTimeout(30, TimeUnit.SECONDS)
-                    .proxy(proxy)
-                    .build();
-
-            this.telegramBot = new TelegramBot.Builder(Config.TELEGRAM_TOKEN.getAs(String.class))
-                    .okHttpClient(client)
-                    .build();
-        } else if (Config.TELEGRAM_ENABLE.getAs(Boolean.class)) {
-            this.telegramBot = new TelegramBot(Config.TELEGRAM_TOKEN.getAs(String.class));
-        } else {
-            this.telegramBot = null;
+            clientBuilder.proxy(proxy);
         }
+
+        this.telegramBot = new TelegramBot.Builder(Config.TELEGRAM_TOKEN.getAs(String.class))
+                .okHttpClient(clientBuilder.build())
+                .build();
     }
 
-    public void sendBackup(File file) {
-        if (this.telegramBot == null) return;
-        final SendResponse execute = this.telegramBot.execute(
-                new SendDocument(Config.TELEGRAM_USER_ID.getAs(Long.class), file)
-        );
+    public boolean isEnabled() {
+        return this.telegramBot != null;
+    }
 
-        if (!execute.isOk()) {
-            System.out.println("❌ Couldn't send backup because " + execute.description());
-            return;
-        }
+    public boolean sendDocument(File file, String caption) {
+        final SendDocument request = new SendDocument(Config.TELEGRAM_USER_ID.getAs(Long.class), file);
+        if (caption != null) request.caption(caption);
+        return this.execute(request, file.getName());
+    }
 
-        file.delete();
-        System.out.println("✅ Backup sent successfully.");
+    public boolean sendMessage(String text) {
+        return this.execute(new SendMessage(Config.TELEGRAM_USER_ID.getAs(Long.class), text), "message");
+    }
+
+    private <T extends BaseRequest<T, R>, R extends BaseResponse> boolean execute(BaseRequest<T, R> request,
+                                                                                 String name) {
+        for (int attempt = 1; ; attempt++) {
+            long delay = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << (attempt - 1));
+            String reason;
+
+            try {
+                final R response = this.telegramBot.execute(request);
+                if (response.isOk()) return true;
+
+                reason = response.description();
+                if (response.errorCode() == 429 && response.parameters() != null
+                    && response.parameters().retryAfter() != null) {
+                    delay = response.parameters().retryAfter() * 1000L;
+                } else if (response.errorCode() >= 400 && response.errorCode() < 500) {
+                    // Bad requests, a wrong chat or a too large file won't get better by trying again.
+                    System.out.println("❌ Couldn't send " + name + " because " + reason);
+                    return false;
+                }
+            } catch (RuntimeException e) {
+                reason = e.getMessage();
+            }
+
+            if (attempt >= MAX_ATTEMPTS) {
+                System.out.println("❌ Couldn't send " + name + " after " + attempt + " attempts because " + reason);
+                return false;
+            }
+
+            System.out.println(
+                    "⚠️ Sending " + name + " failed (" + reason + "), retrying in " + delay / 1000 + "s"
+            );
+            try {
+                Thread.sleep(delay + ThreadLocalRandom.current().nextLong(500));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
     }
 }
@@ -0,0 +1,337 @@
+package ir.mrstudios.databasecloner.managers;
+
+import ir.mrstudios.databasecloner.streams.SplitFileOutputStream;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class UploadQueueManager {
+
+    private final TelegramManager telegramManager;
+    private final Path queueDirectory;
+    private final Path failedDirectory;
+    private final long partSize;
+    private final int maxAttempts;
+    private final DelayQueue<UploadJob> jobs = new DelayQueue<>();
+    private final ExecutorService workers;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong uploadedFiles = new AtomicLong();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicLong uploadNanos = new AtomicLong();
+
+    private static final String JOB_EXTENSION = ".job";
+    private static final long INITIAL_RETRY_MILLIS = 30_000;
+    private static final long MAX_RETRY_MILLIS = 60 * 60_000;
+    private static final int MAX_MESSAGE_LENGTH = 4000;
+
+    public UploadQueueManager(
+            TelegramManager telegramManager,
+            Path queueDirectory,
+            int threads,
+            long partSize,
+            int maxAttempts
+    ) throws IOException {
+        this.telegramManager = telegramManager;
+        this.queueDirectory = queueDirectory;
+        this.failedDirectory = queueDirectory.resolve("failed");
+        this.partSize = partSize;
+        this.maxAttempts = maxAttempts;
+
+        Files.createDirectories(this.failedDirectory);
+        this.loadJobs();
+
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "upload-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < threads; i++) {
+            this.workers.execute(this::work);
+        }
+    }
+
+    private void loadJobs() throws IOException {
+        try (Stream<Path> files = Files.list(this.queueDirectory)) {
+            // Job files are named by creation order, so a restart resumes uploads in the order they were queued.
+            for (Path jobFile : files.filter(path -> path.toString().endsWith(JOB_EXTENSION)).sorted().toList()) {
+                final Properties properties = new Properties();
+                try (Reader reader = Files.newBufferedReader(jobFile)) {
+                    properties.load(reader);
+                }
+                this.jobs.add(new UploadJob(jobFile, properties));
+            }
+        }
+
+        if (!this.jobs.isEmpty()) {
+            System.out.println("📤 Resuming " + this.jobs.size() + " queued uploads.");
+        }
+    }
+
+    public PartUpload startUpload(String backupName) {
+        if (this.partSize <= 0) return null;
+        return new PartUpload(backupName);
+    }
+
+    public void enqueue(File file, boolean delete) {
+        if (file.isDirectory()) {
+            final File[] files = file.listFiles();
+            if (files == null) return;
+
+            for (File child : files) {
+                this.enqueue(child, delete);
+            }
+            if (delete) file.delete();
+            return;
+        }
+
+        if (this.partSize > 0 && file.length() > this.partSize) {
+            this.enqueueInParts(file, delete);
+            return;
+        }
+
+        final Properties properties = new Properties();
+        properties.setProperty("type", "document");
+        properties.setProperty("path", file.getAbsolutePath());
+        properties.setProperty("delete", String.valueOf(delete));
+        this.add(properties);
+    }
+
+    private void enqueueInParts(File file, boolean delete) {
+        // The file already exists here, so this is the one case that splits in a second pass.
+        final PartUpload upload = new PartUpload(file.getName());
+        try (InputStream inputStream = Files.newInputStream(file.toPath());
+             SplitFileOutputStream splitStream = new SplitFileOutputStream(
+                     this.queueDirectory.resolve(file.getName()).toString(), upload
+             )) {
+            inputStream.transferTo(splitStream);
+        } catch (IOException e) {
+            System.out.println("❌ Couldn't split " + file.getName() + " because " + e.getMessage());
+            return;
+        }
+
+        upload.finish(true);
+        if (delete) file.delete();
+    }
+
+    private void enqueueMessage(String text) {
+        final Properties properties = new Properties();
+        properties.setProperty("type", "message");
+        properties.setProperty("text", text);
+        this.add(properties);
+    }
+
+    private void add(Properties properties) {
+        properties.setProperty("attempts", "0");
+        properties.setProperty("next-attempt", "0");
+
+        final Path jobFile = this.queueDirectory.resolve(String.format(
+                "%013d-%06d%s", System.currentTimeMillis(), this.sequence.incrementAndGet() % 1_000_000, JOB_EXTENSION
+        ));
+        final UploadJob job = new UploadJob(jobFile, properties);
+
+        try {
+            job.save();
+        } catch (IOException e) {
+            // The upload still runs, it just won't survive a restart.
+            System.err.println("⚠️ Couldn't persist upload job: " + e.getMessage());
+        }
+        this.jobs.add(job);
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final UploadJob job;
+            try {
+                job = this.jobs.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            this.inFlight.incrementAndGet();
+            try {
+                this.process(job);
+            } catch (Exception e) {
+                System.err.println("❌ Upload worker failed: " + e.getMessage());
+            } finally {
+                this.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private void process(UploadJob job) throws IOException {
+        final long startNanos = System.nanoTime();
+        final boolean sent;
+        long bytes = 0;
+
+        if (job.type().equals("message")) {
+            sent = this.telegramManager.sendMessage(job.properties.getProperty("text"));
+        } else {
+            final File file = new File(job.properties.getProperty("path"));
+            if (!file.exists()) {
+                System.err.println("⚠️ Dropping upload of " + file.getName() + ", the file is gone.");
+                Files.deleteIfExists(job.jobFile);
+                return;
+            }
+
+            bytes = file.length();
+            sent = this.telegramManager.sendDocument(file, job.properties.getProperty("caption"));
+            if (sent && Boolean.parseBoolean(job.properties.getProperty("delete"))) file.delete();
+        }
+
+        if (sent) {
+            Files.deleteIfExists(job.jobFile);
+
+            final long nanos = System.nanoTime() - startNanos;
+            this.uploadedFiles.incrementAndGet();
+            this.uploadedBytes.addAndGet(bytes);
+            this.uploadNanos.addAndGet(nanos);
+            if (bytes > 0) {
+                System.out.printf("📤 Uploaded %s: %.2f MB at %.2f MB/s, %d left in queue\n",
+                        new File(job.properties.getProperty("path")).getName(), bytes / (1024.0 * 1024.0),
+                        bytes / (1024.0 * 1024.0) / Math.max(nanos / 1e9, 0.001), this.depth());
+            }
+            return;
+        }
+
+        final int attempts = job.attempts() + 1;
+        if (attempts >= this.maxAttempts) {
+            Files.move(job.jobFile, this.failedDirectory.resolve(job.jobFile.getFileName()),
+                    StandardCopyOption.REPLACE_EXISTING);
+            System.err.println("❌ Upload gave up after " + attempts + " attempts, job kept in "
+                               + this.failedDirectory);
+            return;
+        }
+
+        final long delay = Math.min(MAX_RETRY_MILLIS, INITIAL_RETRY_MILLIS << Math.min(attempts - 1, 20));
+        job.properties.setProperty("attempts", String.valueOf(attempts));
+        job.properties.setProperty("next-attempt", String.valueOf(System.currentTimeMillis() + delay));
+        job.save();
+        this.jobs.add(job);
+        System.out.println("⚠️ Upload failed, retry " + attempts + "/" + this.maxAttempts
+                           + " in " + delay / 1000 + "s");
+    }
+
+    public int depth() {
+        return this.jobs.size() + this.inFlight.get();
+    }
+
+    public double throughput() {
+        final long nanos = this.uploadNanos.get();
+        return nanos == 0 ? 0 : this.uploadedBytes.get() / (nanos / 1e9);
+    }
+
+    public String status() {
+        return String.format("📤 Upload queue: %d waiting, %d in flight, %d sent (%.2f MB, %.2f MB/s)",
+                this.jobs.size(), this.inFlight.get(), this.uploadedFiles.get(),
+                this.uploadedBytes.get() / (1024.0 * 1024.0), this.throughput() / (1024.0 * 1024.0));
+    }
+
+    public class PartUpload implements SplitFileOutputStream.PartListener {
+        private final String backupName;
+        private final List<SplitFileOutputStream.Part> parts = new ArrayList<>();
+
+        private PartUpload(String backupName) {
+            this.backupName = backupName;
+        }
+
+        @Override
+        public long partSize() {
+            return UploadQueueManager.this.partSize;
+        }
+
+        @Override
+        public synchronized void onPart(SplitFileOutputStream.Part part) {
+            this.parts.add(part);
+
+            // Queued as soon as it is complete, so it uploads while the backup writes the next part.
+            final Properties properties = new Properties();
+            properties.setProperty("type", "document");
+            properties.setProperty("path", part.path().toAbsolutePath().toString());
+            properties.setProperty("caption", this.backupName + " part " + part.index());
+            properties.setProperty("delete", "true");
+            UploadQueueManager.this.add(properties);
+        }
+
+        public synchronized boolean hasParts() {
+            return !this.parts.isEmpty();
+        }
+
+        public synchronized void finish(boolean complete) {
+            if (this.parts.isEmpty()) return;
+
+            long totalSize = 0;
+            final StringBuilder lines = new StringBuilder();
+            for (SplitFileOutputStream.Part part : this.parts) {
+                totalSize += part.size();
+                lines.append(part.path().getFileName()).append(' ').append(part.size()).append(' ')
+                        .append(part.sha256()).append('\n');
+            }
+
+            // Long part lists are spread over several messages, each below Telegram's text limit.
+            String message = "📦 " + this.backupName + (complete ? "" : " (backup failed, incomplete)") + "\n"
+                             + this.parts.size() + " parts, "
+                             + String.format("%.2f MB", totalSize / (1024.0 * 1024.0)) + "\n"
+                             + "Join with: cat \"" + this.backupName + "\".part* > \"" + this.backupName + "\"\n\n";
+            for (String line : lines.toString().split("\n")) {
+                if (message.length() + line.length() + 1 > MAX_MESSAGE_LENGTH) {
+                    UploadQueueManager.this.enqueueMessage(message);
+                    message = "";
+                }
+                message += line + "\n";
+            }
+            UploadQueueManager.this.enqueueMessage(message);
+        }
+    }
+
+    private static class UploadJob implements Delayed {
+        private final Path jobFile;
+        private final Properties properties;
+
+        private UploadJob(Path jobFile, Properties properties) {
+            this.jobFile = jobFile;
+            this.properties = properties;
+        }
+
+        private String type() {
+            return this.properties.getProperty("type", "document");
+        }
+
+        private int attempts() {
+            return Integer.parseInt(this.properties.getProperty("attempts", "0"));
+        }
+
+        private void save() throws IOException {
+            // Written aside and moved over the old file, so a crash never leaves a half written job behind.
+            final Path temporary = this.jobFile.resolveSibling(this.jobFile.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary)) {
+                this.properties.store(writer, null);
+            }
+            Files.move(temporary, this.jobFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            final long nextAttempt = Long.parseLong(this.properties.getProperty("next-attempt", "0"));
+            return unit.convert(nextAttempt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            final int order = Long.compare(this.getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+            if (order != 0 || !(other instanceof UploadJob job)) return order;
+            return this.jobFile.getFileName().compareTo(job.jobFile.getFileName());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ir.mrstudios.databasecloner.models;
+
+import org.bson.RawBsonDocument;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class BsonChunkBuffer {
+
+    private byte[] buffer;
+    private int size;
+    private int documentCount;
+
+    public BsonChunkBuffer(int initialCapacity) {
+        this.buffer = new byte[Math.max(64, initialCapacity)];
+    }
+
+    public void append(RawBsonDocument document) {
+        // The driver may hand out a view over a larger array, so copy exactly the document's own slice.
+        final ByteBuffer bson = document.getByteBuffer().asNIO();
+        final int length = bson.remaining();
+        this.ensureCapacity(this.size + 4 + length);
+
+        this.buffer[this.size] = (byte) (length >>> 24);
+        this.buffer[this.size + 1] = (byte) (length >>> 16);
+        this.buffer[this.size + 2] = (byte) (length >>> 8);
+        this.buffer[this.size + 3] = (byte) length;
+        bson.get(bson.position(), this.buffer, this.size + 4, length);
+
+        this.size += 4 + length;
+        this.documentCount++;
+    }
+
+    public byte[] array() {
+        return this.buffer;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int documentCount() {
+        return this.documentCount;
+    }
+
+    public void reset() {
+        this.size = 0;
+        this.documentCount = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.buffer.length) return;
+        this.buffer = Arrays.copyOf(this.buffer, Math.max(capacity, this.buffer.length * 2));
+    }
+}
@@ -0,0 +1,239 @@
+package ir.mrstudios.databasecloner.models;
+
+import ir.mrstudios.databasecloner.codecs.Codec;
+import ir.mrstudios.databasecloner.streams.ChunkingOutputStream;
+import ir.mrstudios.databasecloner.utils.CodecUtil;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+public class ChunkStore {
+
+    private final Path packsDirectory;
+    private final Path manifestsDirectory;
+    private final Codec codec;
+    private final int averageChunkSize;
+    private final Map<String, ChunkLocation> chunks = new HashMap<>();
+
+    private static final String PACK_EXTENSION = ".pack";
+    private static final String MANIFEST_EXTENSION = ".manifest";
+    private static final String MANIFEST_HEADER = "# MR backup manifest v1";
+
+    public ChunkStore(Path root, Codec codec, int averageChunkSize) throws IOException {
+        this.packsDirectory = root.resolve("packs");
+        this.manifestsDirectory = root.resolve("manifests");
+        this.codec = codec;
+        this.averageChunkSize = averageChunkSize;
+
+        Files.createDirectories(this.packsDirectory);
+        Files.createDirectories(this.manifestsDirectory);
+        this.loadIndex();
+    }
+
+    private void loadIndex() throws IOException {
+        try (Stream<Path> manifests = Files.list(this.manifestsDirectory)) {
+            for (Path manifest : manifests.filter(path -> path.toString().endsWith(MANIFEST_EXTENSION)).toList()) {
+                for (String line : Files.readAllLines(manifest)) {
+                    if (!line.startsWith("chunk\t")) continue;
+
+                    final String[] fields = line.split("\t");
+                    this.chunks.putIfAbsent(fields[1], ChunkLocation.parse(fields));
+                }
+            }
+        }
+        System.out.println("📦 Backup repository has " + this.chunks.size() + " unique chunks.");
+    }
+
+    public synchronized StoreResult store(Path source, String runName) throws IOException {
+        final long startTime = System.currentTimeMillis();
+        final Path packPath = this.packsDirectory.resolve(runName + PACK_EXTENSION);
+        final Path manifestPath = this.manifestsDirectory.resolve(runName + MANIFEST_EXTENSION);
+        final boolean directory = Files.isDirectory(source);
+
+        final List<Path> files;
+        if (directory) {
+            try (Stream<Path> walk = Files.walk(source)) {
+                files = walk.filter(Files::isRegularFile).sorted().toList();
+            }
+        } else {
+            files = List.of(source);
+        }
+
+        final RunWriter run = new RunWriter(runName + PACK_EXTENSION, packPath, manifestPath);
+        try (run) {
+            run.manifest.write(MANIFEST_HEADER + "\n");
+            run.manifest.write("run\t" + runName + "\t" + (directory ? "directory" : "file") + "\n");
+
+            for (Path file : files) {
+                final String name = directory
+                        ? source.relativize(file).toString().replace(File.separatorChar, '/')
+                        : file.getFileName().toString();
+                run.manifest.write("file\t" + name + "\n");
+
+                try (InputStream inputStream = Files.newInputStream(file);
+                     ChunkingOutputStream chunker = new ChunkingOutputStream(run, this.averageChunkSize)) {
+                    inputStream.transferTo(chunker);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // A half written run must not leave index entries behind that point into a deleted pack.
+            run.added.forEach(this.chunks::remove);
+            Files.deleteIfExists(packPath);
+            Files.deleteIfExists(manifestPath);
+            throw e;
+        }
+
+        if (run.newChunks == 0) Files.deleteIfExists(packPath);
+
+        System.out.printf("📦 Stored %s: %.2f MB in %d chunks, %d new (%.2f MB) in %.2f seconds\n",
+                runName, run.totalBytes / (1024.0 * 1024.0), run.totalChunks, run.newChunks,
+                run.newBytes / (1024.0 * 1024.0), (System.currentTimeMillis() - startTime) / 1000.0);
+
+        return new StoreResult(manifestPath, run.newChunks == 0 ? null : packPath, run.totalBytes, run.newBytes);
+    }
+
+    public static void restore(Path root, String runName, Path target) throws IOException {
+        final Path packsDirectory = root.resolve("packs");
+        final List<String> lines = Files.readAllLines(
+                root.resolve("manifests").resolve(runName + MANIFEST_EXTENSION)
+        );
+        if (lines.isEmpty() || !lines.get(0).equals(MANIFEST_HEADER)) {
+            throw new IOException("The manifest format is invalid!");
+        }
+
+        final boolean directory = lines.get(1).endsWith("\tdirectory");
+        final Map<String, FileChannel> packs = new HashMap<>();
+        final MessageDigest digest = sha256();
+        OutputStream outputStream = null;
+        long restoredBytes = 0;
+
+        try {
+            for (String line : lines.subList(2, lines.size())) {
+                final String[] fields = line.split("\t");
+
+                if (fields[0].equals("file")) {
+                    if (outputStream != null) outputStream.close();
+
+                    final Path file = directory ? target.resolve(fields[1]) : target;
+                    if (file.getParent() != null) Files.createDirectories(file.getParent());
+                    outputStream = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+                    continue;
+                }
+                if (!fields[0].equals("chunk") || outputStream == null) continue;
+
+                final ChunkLocation location = ChunkLocation.parse(fields);
+                FileChannel pack = packs.get(location.pack());
+                if (pack == null) {
+                    pack = FileChannel.open(packsDirectory.resolve(location.pack()), StandardOpenOption.READ);
+                    packs.put(location.pack(), pack);
+                }
+
+                final ByteBuffer stored = ByteBuffer.allocate(location.storedLength());
+                while (stored.hasRemaining()) {
+                    if (pack.read(stored, location.offset() + stored.position()) < 0) {
+                        throw new EOFException("Pack " + location.pack() + " is truncated!");
+                    }
+                }
+
+                final byte[] raw = CodecUtil.byName(location.codec()).decompress(stored.array(), location.rawLength());
+                if (!HexFormat.of().formatHex(digest.digest(raw)).equals(fields[1])) {
+                    throw new IOException("Chunk " + fields[1] + " in " + location.pack() + " is corrupted!");
+                }
+
+                outputStream.write(raw);
+                restoredBytes += raw.length;
+            }
+        } finally {
+            if (outputStream != null) outputStream.close();
+            for (FileChannel pack : packs.values()) pack.close();
+        }
+
+        System.out.printf("✅ Restored %s: %.2f MB\n", runName, restoredBytes / (1024.0 * 1024.0));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class RunWriter implements ChunkingOutputStream.ChunkSink, Closeable {
+        private final String packName;
+        private final OutputStream pack;
+        private final Writer manifest;
+        private final MessageDigest digest = sha256();
+        private final List<String> added = new ArrayList<>();
+        private long packOffset;
+        private long totalBytes;
+        private long newBytes;
+        private int totalChunks;
+        private int newChunks;
+
+        private RunWriter(String packName, Path packPath, Path manifestPath) throws IOException {
+            this.packName = packName;
+            this.pack = new BufferedOutputStream(Files.newOutputStream(packPath), 1 << 16);
+            this.manifest = Files.newBufferedWriter(manifestPath);
+        }
+
+        @Override
+        public void accept(byte[] chunk, int length) throws IOException {
+            this.digest.update(chunk, 0, length);
+            final String hash = HexFormat.of().formatHex(this.digest.digest());
+
+            ChunkLocation location = ChunkStore.this.chunks.get(hash);
+            if (location == null) {
+                final byte[] stored = ChunkStore.this.codec.compress(chunk, 0, length);
+                this.pack.write(stored);
+
+                location = new ChunkLocation(
+                        ChunkStore.this.codec.getName(), this.packName, this.packOffset, stored.length, length
+                );
+                ChunkStore.this.chunks.put(hash, location);
+                this.added.add(hash);
+
+                this.packOffset += stored.length;
+                this.newBytes += stored.length;
+                this.newChunks++;
+            }
+
+            this.manifest.write("chunk\t" + hash + "\t" + location.format() + "\n");
+            this.totalBytes += length;
+            this.totalChunks++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (this.manifest) {
+                this.pack.close();
+            }
+        }
+    }
+
+    public record StoreResult(Path manifest, Path pack, long totalBytes, long newBytes) {
+    }
+
+    private record ChunkLocation(String codec, String pack, long offset, int storedLength, int rawLength) {
+
+        private static ChunkLocation parse(String[] fields) {
+            return new ChunkLocation(
+                    fields[2], fields[3], Long.parseLong(fields[4]), Integer.parseInt(fields[5]),
+                    Integer.parseInt(fields[6])
+            );
+        }
+
+        private String format() {
+            return this.codec + "\t" + this.pack + "\t" + this.offset + "\t" + this.storedLength + "\t"
+                   + this.rawLength;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package ir.mrstudios.databasecloner.models;
+
+import ir.mrstudios.databasecloner.codecs.Codec;
+import ir.mrstudios.databasecloner.utils.CodecUtil;
+import org.bson.RawBsonDocument;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CodecBenchmark {
+
+    private static final long MIN_DURATION_NANOS = 1_000_000_000L;
+    private static final int ENCODE_BLOCK_SIZE = 4 * 1024 * 1024;
+
+    private final List<BenchmarkCase> cases = new ArrayList<>();
+
+    public CodecBenchmark() {
+        for (int level : new int[]{1, 6, 9}) {
+            this.cases.add(new BenchmarkCase("gzip -" + level, CodecUtil.create("gzip", level, false)));
+        }
+        for (int level : new int[]{1, 3, 9, 19}) {
+            this.cases.add(new BenchmarkCase("zstd -" + level, CodecUtil.create("zstd", level, false)));
+        }
+        this.cases.add(new BenchmarkCase("zstd -19 --long", CodecUtil.create("zstd", 19, true)));
+        this.cases.add(new BenchmarkCase("lz4", CodecUtil.create("lz4", 0, false)));
+    }
+
+    public void run(byte[] sample) {
+        final double sampleMegabytes = sample.length / (1024.0 * 1024.0);
+        System.out.printf("\n📊 Codec benchmark on %.2f MB sample\n", sampleMegabytes);
+        System.out.printf("%-18s %10s %14s %14s\n", "Codec", "Ratio", "Compress MB/s", "Decompress MB/s");
+
+        for (BenchmarkCase benchmarkCase : this.cases) {
+            try {
+                final Codec codec = benchmarkCase.codec();
+                final byte[] compressed = codec.compress(sample, 0, sample.length);
+
+                int compressRuns = 0;
+                final long compressStart = System.nanoTime();
+                do {
+                    codec.compress(sample, 0, sample.length);
+                    compressRuns++;
+                } while (System.nanoTime() - compressStart < MIN_DURATION_NANOS);
+                final double compressSeconds = (System.nanoTime() - compressStart) / 1e9;
+
+                int decompressRuns = 0;
+                byte[] decompressed;
+                final long decompressStart = System.nanoTime();
+                do {
+                    decompressed = codec.decompress(compressed, sample.length);
+                    decompressRuns++;
+                } while (System.nanoTime() - decompressStart < MIN_DURATION_NANOS);
+                final double decompressSeconds = (System.nanoTime() - decompressStart) / 1e9;
+
+                if (!Arrays.equals(sample, decompressed)) {
+                    System.err.println("❌ " + benchmarkCase.label() + ": round trip mismatch");
+                    continue;
+                }
+
+                System.out.printf("%-18s %9.2fx %14.1f %14.1f\n",
+                        benchmarkCase.label(),
+                        (double) sample.length / compressed.length,
+                        sampleMegabytes * compressRuns / compressSeconds,
+                        sampleMegabytes * decompressRuns / decompressSeconds);
+            } catch (Exception e) {
+                System.err.println("❌ " + benchmarkCase.label() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public void runEncoding(byte[] sample) {
+        final List<RawBsonDocument> documents = new ArrayList<>();
+        final ByteBuffer buffer = ByteBuffer.wrap(sample);
+        while (buffer.remaining() >= 4) {
+            final int length = buffer.getInt();
+            documents.add(new RawBsonDocument(
+                    Arrays.copyOfRange(sample, buffer.position(), buffer.position() + length)
+            ));
+            buffer.position(buffer.position() + length);
+        }
+
+        final ByteArrayOutputStream legacyChunk = new ByteArrayOutputStream(ENCODE_BLOCK_SIZE);
+        final BsonChunkBuffer chunk = new BsonChunkBuffer(ENCODE_BLOCK_SIZE);
+
+        System.out.printf("\n📊 Backup encoding benchmark on %d documents\n", documents.size());
+        System.out.printf("%-18s %14s %16s\n", "Encoder", "MB/s", "Allocated B/MB");
+
+        this.measureEncoding("DataOutputStream", sample.length, () -> {
+            legacyChunk.reset();
+            final DataOutputStream stream = new DataOutputStream(legacyChunk);
+            for (RawBsonDocument document : documents) {
+                final byte[] bsonBytes = document.getByteBuffer().array();
+                stream.writeInt(bsonBytes.length);
+                stream.write(bsonBytes);
+                if (legacyChunk.size() >= ENCODE_BLOCK_SIZE) legacyChunk.reset();
+            }
+        });
+
+        this.measureEncoding("BsonChunkBuffer", sample.length, () -> {
+            chunk.reset();
+            for (RawBsonDocument document : documents) {
+                chunk.append(document);
+                if (chunk.size() >= ENCODE_BLOCK_SIZE) chunk.reset();
+            }
+        });
+    }
+
+    private void measureEncoding(String label, long sampleBytes, Encoder encoder) {
+        final com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+
+        try {
+            // One untimed pass so buffers are sized and the JIT has seen the loop.
+            encoder.encode();
+
+            int runs = 0;
+            final long allocatedStart = threadBean.getThreadAllocatedBytes(threadId);
+            final long start = System.nanoTime();
+            do {
+                encoder.encode();
+                runs++;
+            } while (System.nanoTime() - start < MIN_DURATION_NANOS);
+            final double seconds = (System.nanoTime() - start) / 1e9;
+            final long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedStart;
+
+            final double megabytes = sampleBytes * (double) runs / (1024.0 * 1024.0);
+            System.out.printf("%-18s %14.1f %16.0f\n", label, megabytes / seconds, allocated / megabytes);
+        } catch (Exception e) {
+            System.err.println("❌ " + label + ": " + e.getMessage());
+        }
+    }
+
+    private interface Encoder {
+        void encode() throws IOException;
+    }
+
+    private record BenchmarkCase(String label, Codec codec) {
+    }
+}
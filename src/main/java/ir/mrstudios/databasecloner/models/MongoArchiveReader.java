@@ -0,0 +1,130 @@
+package ir.mrstudios.databasecloner.models;
+
+import ir.mrstudios.databasecloner.codecs.Codec;
+import ir.mrstudios.databasecloner.utils.CodecUtil;
+import lombok.Getter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+public class MongoArchiveReader implements Closeable {
+
+    public static final String HEADER = "MR_MONGO_BACKUP_V2";
+    public static final long TRAILER_MAGIC = 0x4D524D4F4E474F32L;
+
+    private final FileChannel channel;
+    private final String databaseName;
+    private final long backupTime;
+    private final Codec codec;
+    private final List<ArchiveCollection> collections = new ArrayList<>();
+
+    public MongoArchiveReader(String path) throws IOException {
+        this.channel = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+
+        try {
+            final DataInputStream headerStream = new DataInputStream(Channels.newInputStream(this.channel.position(0)));
+            if (!HEADER.equals(headerStream.readUTF())) {
+                throw new IOException("The backup file format is invalid!");
+            }
+            this.databaseName = headerStream.readUTF();
+            this.backupTime = headerStream.readLong();
+            this.codec = CodecUtil.byName(headerStream.readUTF());
+
+            final ByteBuffer trailer = ByteBuffer.allocate(16);
+            this.readFully(trailer, this.channel.size() - 16);
+            final long indexOffset = trailer.getLong(0);
+            if (trailer.getLong(8) != TRAILER_MAGIC) {
+                throw new IOException("Backup index not found, the file may be truncated!");
+            }
+
+            final ByteBuffer index = ByteBuffer.allocate((int) (this.channel.size() - 16 - indexOffset));
+            this.readFully(index, indexOffset);
+            final DataInputStream indexStream = new DataInputStream(new ByteArrayInputStream(index.array()));
+            final int collectionCount = indexStream.readInt();
+
+            final List<String> names = new ArrayList<>(collectionCount);
+            final long[] documentCounts = new long[collectionCount];
+            final List<List<ArchiveChunk>> collectionChunks = new ArrayList<>(collectionCount);
+
+            for (int i = 0; i < collectionCount; i++) {
+                names.add(indexStream.readUTF());
+                documentCounts[i] = indexStream.readLong();
+                final int chunkCount = indexStream.readInt();
+
+                final List<ArchiveChunk> chunks = new ArrayList<>(chunkCount);
+                for (int j = 0; j < chunkCount; j++) {
+                    chunks.add(new ArchiveChunk(
+                            indexStream.readLong(), indexStream.readInt(), indexStream.readInt(), indexStream.readInt()
+                    ));
+                }
+                collectionChunks.add(chunks);
+            }
+
+            // Archives written before collection metadata was captured end right after the chunk lists.
+            final Document[] metadata = new Document[collectionCount];
+            if (indexStream.available() > 0) {
+                for (int i = 0; i < collectionCount; i++) {
+                    final int length = indexStream.readInt();
+                    if (length == 0) continue;
+
+                    final byte[] bson = new byte[length];
+                    indexStream.readFully(bson);
+                    metadata[i] = new RawBsonDocument(bson).decode(new DocumentCodec());
+                }
+            }
+
+            for (int i = 0; i < collectionCount; i++) {
+                this.collections.add(new ArchiveCollection(
+                        names.get(i), documentCounts[i], collectionChunks.get(i), metadata[i]
+                ));
+            }
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    public static boolean isArchive(String path) {
+        try (DataInputStream dataInputStream = new DataInputStream(new FileInputStream(path))) {
+            return HEADER.equals(dataInputStream.readUTF());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public byte[] readChunk(ArchiveChunk chunk) throws IOException {
+        final ByteBuffer compressed = ByteBuffer.allocate(chunk.compressedSize());
+        this.readFully(compressed, chunk.offset());
+
+        return this.codec.decompress(compressed.array(), chunk.rawSize());
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of backup file!");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    public record ArchiveChunk(long offset, int compressedSize, int rawSize, int documentCount) {
+    }
+
+    public record ArchiveCollection(String name, long documentCount, List<ArchiveChunk> chunks, Document metadata) {
+    }
+}
@@ -0,0 +1,106 @@
+package ir.mrstudios.databasecloner.models;
+
+import ir.mrstudios.databasecloner.codecs.Codec;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MongoArchiveWriter implements Closeable {
+
+    private final DataOutputStream outputStream;
+    private final List<String> collectionNames;
+    private final List<List<MongoArchiveReader.ArchiveChunk>> chunks = new ArrayList<>();
+    private final long[] documentCounts;
+    private final Document[] metadata;
+    private final boolean[] finished;
+    private int remainingCollections;
+    private long position;
+
+    public MongoArchiveWriter(OutputStream output, String databaseName, Codec codec, List<String> collectionNames)
+            throws IOException {
+        this.outputStream = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+        this.collectionNames = collectionNames;
+        this.documentCounts = new long[collectionNames.size()];
+        this.metadata = new Document[collectionNames.size()];
+        this.finished = new boolean[collectionNames.size()];
+        this.remainingCollections = collectionNames.size();
+
+        for (int i = 0; i < collectionNames.size(); i++) {
+            this.chunks.add(new ArrayList<>());
+        }
+
+        this.outputStream.writeUTF(MongoArchiveReader.HEADER);
+        this.outputStream.writeUTF(databaseName);
+        this.outputStream.writeLong(System.currentTimeMillis());
+        this.outputStream.writeUTF(codec.getName());
+        this.position = this.outputStream.size();
+    }
+
+    public void writeChunk(int collectionIndex, byte[] data, int rawSize, int documentCount) throws IOException {
+        this.outputStream.write(data);
+        this.chunks.get(collectionIndex).add(
+                new MongoArchiveReader.ArchiveChunk(this.position, data.length, rawSize, documentCount)
+        );
+        this.position += data.length;
+    }
+
+    public void finishCollection(int collectionIndex, long documentCount) {
+        this.documentCounts[collectionIndex] = documentCount;
+        if (!this.finished[collectionIndex]) {
+            this.finished[collectionIndex] = true;
+            this.remainingCollections--;
+        }
+    }
+
+    public void setMetadata(int collectionIndex, Document metadata) {
+        this.metadata[collectionIndex] = metadata;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            // Without the trailer the reader rejects the file, instead of restoring unfinished collections as empty.
+            if (this.remainingCollections > 0) return;
+
+            final long indexOffset = this.position;
+
+            this.outputStream.writeInt(this.collectionNames.size());
+            for (int i = 0; i < this.collectionNames.size(); i++) {
+                this.outputStream.writeUTF(this.collectionNames.get(i));
+                this.outputStream.writeLong(this.documentCounts[i]);
+
+                final List<MongoArchiveReader.ArchiveChunk> collectionChunks = this.chunks.get(i);
+                this.outputStream.writeInt(collectionChunks.size());
+                for (MongoArchiveReader.ArchiveChunk chunk : collectionChunks) {
+                    this.outputStream.writeLong(chunk.offset());
+                    this.outputStream.writeInt(chunk.compressedSize());
+                    this.outputStream.writeInt(chunk.rawSize());
+                    this.outputStream.writeInt(chunk.documentCount());
+                }
+            }
+
+            for (Document collectionMetadata : this.metadata) {
+                if (collectionMetadata == null) {
+                    this.outputStream.writeInt(0);
+                    continue;
+                }
+
+                final ByteBuffer bson = new RawBsonDocument(collectionMetadata, new DocumentCodec())
+                        .getByteBuffer().asNIO();
+                this.outputStream.writeInt(bson.remaining());
+                this.outputStream.write(bson.array(), bson.arrayOffset() + bson.position(), bson.remaining());
+            }
+
+            this.outputStream.writeLong(indexOffset);
+            this.outputStream.writeLong(MongoArchiveReader.TRAILER_MAGIC);
+            this.outputStream.flush();
+        } finally {
+            this.outputStream.close();
+        }
+    }
+}
@@ -1,78 +1,255 @@
 package ir.mrstudios.databasecloner.models;
 
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.ReadPreference;
 import com.mongodb.client.*;
+import com.mongodb.client.model.*;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import ir.mrstudios.databasecloner.codecs.Codec;
+import ir.mrstudios.databasecloner.codecs.GzipCodec;
+import ir.mrstudios.databasecloner.managers.MongoClientManager;
+import ir.mrstudios.databasecloner.streams.ParallelCompressorOutputStream;
+import ir.mrstudios.databasecloner.streams.SplitFileOutputStream;
+import ir.mrstudios.databasecloner.utils.CodecUtil;
+import lombok.Setter;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.BsonString;
 import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public class MongoBackupRestore {
     private final String connectionUri;
     private final String databaseName;
     private final ExecutorService executor;
+    private final MongoClientManager clients;
+    private final boolean ownsClients;
     private final AtomicInteger processedCollections = new AtomicInteger(0);
-    private final AtomicInteger totalDocuments = new AtomicInteger(0);
+    private final LongAdder totalDocuments = new LongAdder();
+    private boolean primaryReads;
+    private final ThreadLocal<BsonChunkBuffer> chunkBuffers =
+            ThreadLocal.withInitial(() -> new BsonChunkBuffer(this.blockSize));
+
+    @Setter
+    private boolean streaming = true;
+    @Setter
+    private Codec codec = new GzipCodec(6);
+    @Setter
+    private int blockSize = 4 * 1024 * 1024;
+    @Setter
+    private long partitionSize = 512L * 1024 * 1024;
+    @Setter
+    private boolean orderedInserts = false;
+    @Setter
+    private boolean bypassDocumentValidation = false;
+    @Setter
+    private int maxBatchBytes = 48 * 1024 * 1024;
+    @Setter
+    private SplitFileOutputStream.PartListener partListener;
+    @Setter
+    private int batchSize = 0;
+
+    private static final String V1_HEADER = "MR_MONGO_BACKUP_V1";
+    private static final String STREAM_HEADER = "MR_MONGO_BACKUP_STREAM";
+    private static final int STREAM_QUEUE_CAPACITY = 16;
+    private static final int MAX_PARTITIONS = 1024;
+    private static final int SAMPLES_PER_PARTITION = 20;
+    private static final int NAMESPACE_EXISTS = 48;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final int DELTA_BATCH_SIZE = 1000;
+    private static final String DELTA_HEADER = "MR_MONGO_DELTA_V1";
+    private static final String DELTA_EXTENSION = ".delta";
 
     private static final byte[] COLLECTION_SEPARATOR = "##COLLECTION##".getBytes();
     private static final byte[] END_COLLECTION = "##END##".getBytes();
 
     public MongoBackupRestore(String connectionUri, String databaseName, ExecutorService executor) {
+        this(new MongoClientManager(0, null), true, connectionUri, databaseName, executor);
+    }
+
+    public MongoBackupRestore(
+            MongoClientManager clients,
+            String connectionUri,
+            String databaseName,
+            ExecutorService executor
+    ) {
+        this(clients, false, connectionUri, databaseName, executor);
+    }
+
+    private MongoBackupRestore(
+            MongoClientManager clients,
+            boolean ownsClients,
+            String connectionUri,
+            String databaseName,
+            ExecutorService executor
+    ) {
+        this.clients = clients;
+        this.ownsClients = ownsClients;
         this.connectionUri = connectionUri;
         this.databaseName = databaseName;
         this.executor = executor;
     }
 
+    public String getFileExtension() {
+        // Streaming archives compress each chunk inside the container, only the legacy file is compressed whole.
+        return this.streaming ? ".archive" : ".backup" + this.codec.getExtension();
+    }
+
+    private MongoDatabase database() {
+        final MongoDatabase database = this.clients.get(this.connectionUri).getDatabase(this.databaseName);
+        return this.primaryReads ? database.withReadPreference(ReadPreference.primary()) : database;
+    }
+
     public void backup(String outputPath) throws Exception {
         System.out.println("\n🔄 Start Database Backup: " + this.databaseName);
         long startTime = System.currentTimeMillis();
+        this.processedCollections.set(0);
+        this.totalDocuments.reset();
 
-        try (MongoClient mongoClient = MongoClients.create(this.connectionUri)) {
-            final MongoDatabase database = mongoClient.getDatabase(this.databaseName);
+        final MongoDatabase database = this.database();
 
-            final List<String> collectionNames = new ArrayList<>();
-            database.listCollectionNames().forEach(collectionNames::add);
-            System.out.println("📊 Number of collections: " + collectionNames.size());
+        final List<String> collectionNames = new ArrayList<>();
+        database.listCollectionNames().forEach(collectionNames::add);
+        System.out.println("📊 Number of collections: " + collectionNames.size());
+
+        if (this.streaming) {
+            this.streamBackup(database, collectionNames, outputPath);
+        } else {
+            this.bufferedBackup(database, collectionNames, outputPath);
+        }
+
+        final File backupFile = new File(outputPath);
+        System.out.print("✨ Backup complete!\n");
+        System.out.print("📈 Final statistics:\n");
+        System.out.printf("- Collections: %d\n", this.processedCollections.get());
+        System.out.printf("- All documents: %d\n", this.totalDocuments.sum());
+        System.out.printf("- Time: %.2f seconds\n", (System.currentTimeMillis() - startTime) / 1000.0);
+        System.out.printf("- File: %s\n", outputPath);
+        System.out.printf("- File size: %.2f MB", backupFile.length() / (1024.0 * 1024.0));
+    }
+
+    private void bufferedBackup(MongoDatabase database, List<String> collectionNames, String outputPath)
+            throws Exception {
+        final Map<String, ByteArrayOutputStream> collectionData = new ConcurrentHashMap<>();
+        final CountDownLatch latch = new CountDownLatch(collectionNames.size());
+
+        for (String collectionName : collectionNames) {
+            this.executor.submit(() -> {
+                try {
+                    System.out.println("⚙️ Collection processing: " + collectionName);
+                    collectionData.put(collectionName, this.backupCollection(database, collectionName));
+                    System.out.printf("✅ Collection %s completed (%d/%d)\n",
+                            collectionName, this.processedCollections.incrementAndGet(), collectionNames.size());
+                } catch (Exception e) {
+                    System.err.println("❌ Error in collection backup " + collectionName + ": " + e.getMessage());
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
 
-            final Map<String, ByteArrayOutputStream> collectionData = new ConcurrentHashMap<>();
-            final CountDownLatch latch = new CountDownLatch(collectionNames.size());
+        if (!latch.await(1, TimeUnit.DAYS)) {
+            throw new RuntimeException("Timeout in backup!");
+        }
+
+        System.out.println("📦 Compress the final file...");
+        this.writeCompressedBackup(outputPath, collectionData);
+    }
+
+    private void streamBackup(MongoDatabase database, List<String> collectionNames, String outputPath)
+            throws Exception {
+        final BlockingQueue<StreamBlock> queue = new ArrayBlockingQueue<>(STREAM_QUEUE_CAPACITY);
+        final List<Document> metadata = this.collectionMetadata(database, collectionNames);
+        final FutureTask<Void> writerTask = new FutureTask<>(() -> {
+            this.writeArchive(outputPath, collectionNames, metadata, queue);
+            return null;
+        });
+        new Thread(writerTask, "mongo-backup-writer").start();
+
+        final List<Runnable> partitionTasks = new ArrayList<>();
+
+        for (int i = 0; i < collectionNames.size(); i++) {
+            final int collectionIndex = i;
+            final String collectionName = collectionNames.get(i);
+            if (isView(metadata.get(i))) {
+                // A view's documents come from its source collection, only its definition goes in the index.
+                System.out.println("👁️ View kept as definition only: " + collectionName);
+                queue.put(new StreamBlock(collectionIndex, null, 0, 0));
+                continue;
+            }
+
+            final List<CollectionPartition> partitions = this.planPartitions(database, collectionName);
+            final AtomicInteger remainingPartitions = new AtomicInteger(partitions.size());
+            final AtomicLong collectionDocuments = new AtomicLong();
+            final AtomicBoolean failed = new AtomicBoolean();
+
+            if (partitions.size() > 1) {
+                System.out.printf("🧩 Collection %s split into %d partitions\n", collectionName, partitions.size());
+            }
 
-            for (String collectionName : collectionNames) {
-                this.executor.submit(() -> {
+            for (CollectionPartition partition : partitions) {
+                partitionTasks.add(() -> {
                     try {
-                        System.out.println("⚙️ Collection processing: " + collectionName);
-                        collectionData.put(collectionName, this.backupCollection(database, collectionName));
-                        System.out.printf("✅ Collection %s completed (%d/%d)\n",
-                                collectionName, this.processedCollections.incrementAndGet(), collectionNames.size());
+                        this.streamCollection(
+                                database, collectionName, collectionIndex, partition, collectionDocuments, queue
+                        );
                     } catch (Exception e) {
+                        failed.set(true);
                         System.err.println("❌ Error in collection backup " + collectionName + ": " + e.getMessage());
                     } finally {
-                        latch.countDown();
+                        if (remainingPartitions.decrementAndGet() == 0) {
+                            if (!failed.get()) {
+                                System.out.printf("✅ Collection %s completed (%d/%d)\n", collectionName,
+                                        this.processedCollections.incrementAndGet(), collectionNames.size());
+                            }
+
+                            try {
+                                queue.put(new StreamBlock(
+                                        collectionIndex, null, 0, failed.get() ? -1 : collectionDocuments.get()
+                                ));
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
                     }
                 });
             }
+        }
 
-            if (!latch.await(1, TimeUnit.DAYS)) {
-                throw new RuntimeException("Timeout in backup!");
-            }
+        final CountDownLatch latch = new CountDownLatch(partitionTasks.size());
 
-            System.out.println("📦 Compress the final file...");
-            this.writeCompressedBackup(outputPath, collectionData);
+        for (Runnable partitionTask : partitionTasks) {
+            this.executor.submit(() -> {
+                try {
+                    partitionTask.run();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
 
-            final File backupFile = new File(outputPath);
-            System.out.print("✨ Backup complete!\n");
-            System.out.print("📈 Final statistics:\n");
-            System.out.printf("- Collections: %d\n", this.processedCollections.get());
-            System.out.printf("- All documents: %d\n", this.totalDocuments.get());
-            System.out.printf("- Time: %.2f seconds\n", (System.currentTimeMillis() - startTime) / 1000.0);
-            System.out.printf("- File: %s\n", outputPath);
-            System.out.printf("- File size: %.2f MB", backupFile.length() / (1024.0 * 1024.0));
+        if (!latch.await(1, TimeUnit.DAYS)) {
+            throw new RuntimeException("Timeout in backup!");
+        }
+
+        try {
+            writerTask.get(1, TimeUnit.DAYS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
         }
     }
 
@@ -87,84 +264,587 @@ public class MongoBackupRestore {
 
         System.out.printf("📂 Backup file size: %.2f MB\n", backupFile.length() / (1024.0 * 1024.0));
 
-        try (MongoClient mongoClient = MongoClients.create(this.connectionUri);
-             final FileInputStream fileInputStream = new FileInputStream(backupPath);
-             final GZIPInputStream gzipInputStream = new GZIPInputStream(fileInputStream);
-             final DataInputStream dataInputStream = new DataInputStream(gzipInputStream)) {
+        final MongoDatabase database = this.database();
+        this.processedCollections.set(0);
+        this.totalDocuments.reset();
 
-            final MongoDatabase database = mongoClient.getDatabase(this.databaseName);
+        if (MongoArchiveReader.isArchive(backupPath)) {
+            this.restoreArchive(database, backupPath, dropExisting);
+        } else {
+            this.restoreLegacy(database, backupPath, dropExisting);
+        }
 
-            final String header = dataInputStream.readUTF();
-            if (!"MR_MONGO_BACKUP_V1".equals(header)) {
-                throw new IOException("The backup file format is invalid!");
+        final long duration = System.currentTimeMillis() - startTime;
+        System.out.println("✨ Restore completed.!");
+        System.out.print("📈 Final statistics:\n");
+        System.out.printf("- Restored collections: %d\n", this.processedCollections.get());
+        System.out.printf("- All documents: %d\n", this.totalDocuments.sum());
+        System.out.printf("- Time: %.2f seconds\n", duration / 1000.0);
+    }
+
+    public String incrementalBackup(String outputBase, Path statePath, long fullIntervalMillis) throws Exception {
+        // Token and data have to come from one member, a lagging secondary would lose the writes in between.
+        this.primaryReads = true;
+        try {
+            return this.incrementalBackupOnPrimary(outputBase, statePath, fullIntervalMillis);
+        } finally {
+            this.primaryReads = false;
+        }
+    }
+
+    private String incrementalBackupOnPrimary(String outputBase, Path statePath, long fullIntervalMillis)
+            throws Exception {
+        final Document state = Files.exists(statePath) ? Document.parse(Files.readString(statePath)) : null;
+        final boolean fullDue = state == null
+                                || System.currentTimeMillis() - state.getLong("lastFull") >= fullIntervalMillis;
+
+        if (!fullDue) {
+            final String deltaPath = outputBase + DELTA_EXTENSION;
+            try {
+                final Document token = this.captureDelta(deltaPath, state.get("token", Document.class));
+                state.put("token", token);
+                state.put("deltas", state.getInteger("deltas", 0) + 1);
+                Files.writeString(statePath, state.toJson());
+                return deltaPath;
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() != CHANGE_STREAM_HISTORY_LOST) throw e;
+                System.err.println("⚠️ Resume token is no longer in the oplog, taking a new full backup.");
+                Files.deleteIfExists(Path.of(deltaPath));
             }
+        }
 
-            final String backupDbName = dataInputStream.readUTF();
-            final long backupTime = dataInputStream.readLong();
-            final int collectionCount = dataInputStream.readInt();
+        // The token is taken before the full backup, changes made while it runs are replayed by the next delta.
+        final Document token = this.currentResumeToken();
+        final String fullPath = outputBase + this.getFileExtension();
+        this.backup(fullPath);
 
-            System.out.println("📋 Backup information:");
-            System.out.println("- Main database: " + backupDbName);
-            System.out.println("- Backup time: " + new Date(backupTime));
-            System.out.println("- Number of collections: " + collectionCount);
+        Files.writeString(statePath, new Document("token", token)
+                .append("lastFull", System.currentTimeMillis())
+                .append("base", fullPath)
+                .append("deltas", 0)
+                .toJson());
+        return fullPath;
+    }
+
+    private Document currentResumeToken() {
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = this.database().watch().cursor()) {
+            cursor.tryNext();
+            return new Document(cursor.getResumeToken());
+        }
+    }
+
+    private Document captureDelta(String deltaPath, Document resumeToken) throws IOException {
+        System.out.println("\n🔄 Start Incremental Backup: " + this.databaseName);
+        final long startTime = System.currentTimeMillis();
+        long events = 0;
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<RawBsonDocument>> cursor = this.database()
+                     .watch(RawBsonDocument.class)
+                     .resumeAfter(resumeToken.toBsonDocument())
+                     .fullDocument(FullDocument.UPDATE_LOOKUP)
+                     .batchSize(1000)
+                     .cursor();
+             DataOutputStream outputStream = new DataOutputStream(
+                     new BufferedOutputStream(new FileOutputStream(deltaPath), 1 << 16)
+             )) {
+            outputStream.writeUTF(DELTA_HEADER);
+            outputStream.writeUTF(this.databaseName);
+            outputStream.writeLong(System.currentTimeMillis());
+            outputStream.writeUTF(this.codec.getName());
+            outputStream.flush();
+
+            final DataOutputStream eventStream = new DataOutputStream(this.codec.newOutputStream(outputStream));
+            final BsonChunkBuffer buffer = new BsonChunkBuffer(64 * 1024);
+
+            // tryNext returns null once the stream has caught up with the present, which ends this delta.
+            ChangeStreamDocument<RawBsonDocument> event;
+            while ((event = cursor.tryNext()) != null) {
+                final RawBsonDocument change = toDeltaRecord(event);
+                if (change == null) continue;
+
+                buffer.append(change);
+                if (buffer.size() >= this.blockSize) {
+                    eventStream.write(buffer.array(), 0, buffer.size());
+                    buffer.reset();
+                }
+                events++;
+            }
+
+            eventStream.write(buffer.array(), 0, buffer.size());
+            eventStream.writeInt(0);
+            eventStream.close();
+
+            System.out.printf("✨ Incremental backup complete: %d changes in %.2f seconds\n",
+                    events, (System.currentTimeMillis() - startTime) / 1000.0);
+            // The post batch token also moves forward over quiet periods without any events.
+            final BsonDocument lastToken = cursor.getResumeToken();
+            return lastToken == null ? resumeToken : Document.parse(lastToken.toJson());
+        }
+    }
+
+    private static RawBsonDocument toDeltaRecord(ChangeStreamDocument<RawBsonDocument> event) {
+        if (event.getNamespace() == null) return null;
 
+        // Only what replay needs is kept, the resume token and cluster time of each event are dropped.
+        final BsonDocument record = new BsonDocument("op", new BsonString(event.getOperationTypeString()))
+                .append("coll", new BsonString(event.getNamespace().getCollectionName()));
+        if (event.getDocumentKey() != null) record.append("key", event.getDocumentKey());
+        if (event.getFullDocument() != null) record.append("doc", event.getFullDocument());
+        if (event.getDestinationNamespace() != null) {
+            record.append("to", new BsonString(event.getDestinationNamespace().getCollectionName()));
+        }
+        return new RawBsonDocument(record, new BsonDocumentCodec());
+    }
+
+    public void replayDeltas(List<String> deltaPaths) throws Exception {
+        final MongoDatabase database = this.database();
+
+        for (String deltaPath : deltaPaths) {
+            this.replayDelta(database, deltaPath);
+        }
+    }
+
+    private void replayDelta(MongoDatabase database, String deltaPath) throws IOException {
+        System.out.println("🔁 Replay delta: " + deltaPath);
+        final Map<String, List<WriteModel<RawBsonDocument>>> pending = new LinkedHashMap<>();
+        long applied = 0;
 
-            final List<RestoreTask> restoreTasks = new ArrayList<>();
+        try (DataInputStream headerStream = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(deltaPath), 1 << 16)
+        )) {
+            if (!DELTA_HEADER.equals(headerStream.readUTF())) {
+                throw new IOException("The delta file format is invalid!");
+            }
+            headerStream.readUTF();
+            final long deltaTime = headerStream.readLong();
+            final Codec deltaCodec = CodecUtil.byName(headerStream.readUTF());
+            System.out.println("- Delta time: " + new Date(deltaTime));
 
-            for (int i = 0; i < collectionCount; i++) {
-                final byte[] separator = new byte[COLLECTION_SEPARATOR.length];
-                dataInputStream.readFully(separator);
+            final DataInputStream eventStream = new DataInputStream(deltaCodec.newInputStream(headerStream));
+            int length;
+            while ((length = eventStream.readInt()) > 0) {
+                final byte[] bson = new byte[length];
+                eventStream.readFully(bson);
+                final RawBsonDocument change = new RawBsonDocument(bson);
 
-                if (!Arrays.equals(separator, COLLECTION_SEPARATOR)) {
-                    throw new IOException("Invalid data format!");
+                final String operation = change.getString("op").getValue();
+                final String collectionName = change.getString("coll").getValue();
+                if (operation.equals("drop") || operation.equals("rename")) {
+                    this.flushDelta(database, pending);
+                    final MongoCollection<RawBsonDocument> collection = database.getCollection(
+                            collectionName, RawBsonDocument.class
+                    );
+                    if (operation.equals("drop")) {
+                        collection.drop();
+                    } else {
+                        collection.renameCollection(
+                                new MongoNamespace(this.databaseName, change.getString("to").getValue()),
+                                new RenameCollectionOptions().dropTarget(true)
+                        );
+                    }
+                    applied++;
+                    continue;
                 }
+                if (!change.containsKey("key")) continue;
 
-                final int dataLength = dataInputStream.readInt();
-                final byte[] collectionData = new byte[dataLength];
-                dataInputStream.readFully(collectionData);
+                final BsonDocument documentKey = change.getDocument("key");
+                final WriteModel<RawBsonDocument> model = switch (operation) {
+                    case "insert", "replace", "update" -> change.containsKey("doc")
+                            ? new ReplaceOneModel<>(documentKey, (RawBsonDocument) change.getDocument("doc"),
+                            new ReplaceOptions().upsert(true))
+                            : null;
+                    case "delete" -> new DeleteOneModel<>(documentKey);
+                    default -> null;
+                };
+                if (model == null) continue;
 
-                final byte[] endMarker = new byte[END_COLLECTION.length];
-                dataInputStream.readFully(endMarker);
+                final List<WriteModel<RawBsonDocument>> models = pending.computeIfAbsent(
+                        collectionName, name -> new ArrayList<>()
+                );
+                models.add(model);
+                applied++;
 
-                if (!Arrays.equals(endMarker, END_COLLECTION)) {
-                    throw new IOException("End marker collection not found!");
+                if (models.size() >= DELTA_BATCH_SIZE) {
+                    database.getCollection(collectionName, RawBsonDocument.class).bulkWrite(models);
+                    models.clear();
                 }
+            }
+        }
+
+        this.flushDelta(database, pending);
+        System.out.printf("✅ %d changes applied from %s\n", applied, deltaPath);
+    }
+
+    private void flushDelta(MongoDatabase database, Map<String, List<WriteModel<RawBsonDocument>>> pending) {
+        for (Map.Entry<String, List<WriteModel<RawBsonDocument>>> entry : pending.entrySet()) {
+            if (entry.getValue().isEmpty()) continue;
+
+            // Ordered per collection, so several changes to one document land in the order they happened.
+            database.getCollection(entry.getKey(), RawBsonDocument.class).bulkWrite(entry.getValue());
+            entry.getValue().clear();
+        }
+    }
+
+    public void cloneTo(String targetUri, String targetDatabaseName, boolean dropExisting) throws Exception {
+        System.out.printf("\n🔄 Start Database Clone: %s -> %s\n", this.databaseName, targetDatabaseName);
+        final long startTime = System.currentTimeMillis();
+        this.processedCollections.set(0);
+        this.totalDocuments.reset();
 
-                restoreTasks.add(new RestoreTask(collectionData));
+        final MongoDatabase source = this.database();
+        final MongoDatabase target = this.clients.get(targetUri).getDatabase(targetDatabaseName);
+
+        final List<String> collectionNames = new ArrayList<>();
+        source.listCollectionNames().forEach(collectionNames::add);
+        final List<Document> metadata = this.collectionMetadata(source, collectionNames);
+        System.out.println("📊 Number of collections: " + collectionNames.size());
+
+        // Readers get their own threads, the executor is fully taken by the insert workers.
+        final ExecutorService readers = Executors.newFixedThreadPool(this.parallelism());
+        final MongoInsertPipeline pipeline = this.createInsertPipeline();
+
+        try {
+            this.cloneCollections(source, target, collectionNames, metadata, pipeline, readers, dropExisting);
+        } finally {
+            pipeline.await();
+            readers.shutdown();
+        }
+
+        this.buildIndexes(target, collectionNames, metadata);
+        this.createViews(target, collectionNames, metadata, dropExisting);
+
+        System.out.println("✨ Clone complete!");
+        System.out.print("📈 Final statistics:\n");
+        System.out.printf("- Cloned collections: %d\n", this.processedCollections.get());
+        System.out.printf("- All documents: %d\n", this.totalDocuments.sum());
+        System.out.printf("- Time: %.2f seconds\n", (System.currentTimeMillis() - startTime) / 1000.0);
+    }
+
+    private void cloneCollections(
+            MongoDatabase source,
+            MongoDatabase target,
+            List<String> collectionNames,
+            List<Document> metadata,
+            MongoInsertPipeline pipeline,
+            ExecutorService readers,
+            boolean dropExisting
+    ) throws InterruptedException {
+        final List<Runnable> partitionTasks = new ArrayList<>();
+
+        for (int i = 0; i < collectionNames.size(); i++) {
+            final String collectionName = collectionNames.get(i);
+            if (isView(metadata.get(i))) continue;
+
+            final MongoCollection<RawBsonDocument> sourceCollection = source
+                    .getCollection(collectionName, RawBsonDocument.class);
+            final MongoCollection<RawBsonDocument> targetCollection = target
+                    .getCollection(collectionName, RawBsonDocument.class);
+
+            if (dropExisting) {
+                targetCollection.drop();
+                System.out.println("🗑️ Previous collection deleted: " + collectionName);
             }
+            this.createCollection(target, collectionName, metadata.get(i));
 
-            final CountDownLatch latch = new CountDownLatch(restoreTasks.size());
-            this.processedCollections.set(0);
-            this.totalDocuments.set(0);
+            final List<CollectionPartition> partitions = this.planPartitions(source, collectionName);
+            final AtomicInteger remainingPartitions = new AtomicInteger(partitions.size());
+            final AtomicLong collectionDocuments = new AtomicLong();
 
-            for (RestoreTask task : restoreTasks) {
-                this.executor.submit(() -> {
-                    try {
-                        this.restoreCollection(database, task.data, dropExisting);
-                        System.out.printf("✅ Restore collection %d/%d completed.\n",
-                                this.processedCollections.incrementAndGet(), collectionCount);
+            if (partitions.size() > 1) {
+                System.out.printf("🧩 Collection %s split into %d partitions\n", collectionName, partitions.size());
+            }
+
+            for (CollectionPartition partition : partitions) {
+                final MongoInsertPipeline.Sink sink = pipeline.open(collectionName, targetCollection, inserted -> {
+                    this.totalDocuments.add(inserted);
+                    final long cloned = collectionDocuments.addAndGet(inserted);
+
+                    if (remainingPartitions.decrementAndGet() == 0) {
+                        System.out.printf("✅ Collection %s cloned: %d documents (%d/%d)\n", collectionName, cloned,
+                                this.processedCollections.incrementAndGet(), collectionNames.size());
+                    }
+                });
+
+                partitionTasks.add(() -> {
+                    try (MongoCursor<RawBsonDocument> cursor = this.findPartition(sourceCollection, partition)
+                            .cursor()) {
+                        while (cursor.hasNext()) {
+                            sink.add(cursor.next());
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
                     } catch (Exception e) {
-                        System.err.println("❌ Error in restore: " + e.getMessage());
+                        System.err.println("❌ Error in collection clone " + collectionName + ": " + e.getMessage());
                     } finally {
-                        latch.countDown();
+                        try {
+                            sink.finish();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
                     }
                 });
             }
+        }
+
+        final CountDownLatch latch = new CountDownLatch(partitionTasks.size());
+
+        for (Runnable partitionTask : partitionTasks) {
+            readers.submit(() -> {
+                try {
+                    partitionTask.run();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        if (!latch.await(1, TimeUnit.DAYS)) {
+            throw new RuntimeException("Timeout in clone!");
+        }
+    }
+
+    private void createViews(
+            MongoDatabase target,
+            List<String> collectionNames,
+            List<Document> metadata,
+            boolean dropExisting
+    ) {
+        for (int i = 0; i < collectionNames.size(); i++) {
+            final Document collectionMetadata = metadata.get(i);
+            if (!isView(collectionMetadata)) continue;
+
+            final String viewName = collectionNames.get(i);
+            try {
+                if (dropExisting) target.getCollection(viewName).drop();
+
+                final Document command = new Document("create", viewName);
+                command.putAll(collectionMetadata.get("options", new Document()));
+                target.runCommand(command);
+                System.out.println("👁️ View created: " + viewName);
+            } catch (MongoCommandException e) {
+                System.err.println("⚠️ Couldn't create view " + viewName + ": " + e.getErrorMessage());
+            }
+        }
+    }
+
+    private void restoreArchive(MongoDatabase database, String backupPath, boolean dropExisting) throws Exception {
+        try (MongoArchiveReader reader = new MongoArchiveReader(backupPath)) {
+            final List<MongoArchiveReader.ArchiveCollection> collections = reader.getCollections();
+
+            System.out.println("📋 Backup information:");
+            System.out.println("- Main database: " + reader.getDatabaseName());
+            System.out.println("- Backup time: " + new Date(reader.getBackupTime()));
+            System.out.println("- Codec: " + reader.getCodec().getName());
+            System.out.println("- Number of collections: " + collections.size());
+
+            // Chunks are decompressed ahead on their own threads and handed to the sinks in archive order.
+            final int decompressorCount = Math.max(2, this.parallelism() / 2);
+            final ExecutorService decompressors = Executors.newFixedThreadPool(decompressorCount);
+            final MongoInsertPipeline pipeline = this.createInsertPipeline();
+
+            try {
+                for (MongoArchiveReader.ArchiveCollection archiveCollection : collections) {
+                    if (archiveCollection.documentCount() < 0) {
+                        System.out.println("⚠️ Skipping incomplete collection: " + archiveCollection.name());
+                        continue;
+                    }
+                    // Older archives hold the documents a view returned, it is recreated from its definition instead.
+                    if (isView(archiveCollection.metadata())) continue;
+
+                    final MongoInsertPipeline.Sink sink = this.openCollection(
+                            database, pipeline, archiveCollection.name(), archiveCollection.documentCount(),
+                            collections.size(), dropExisting
+                    );
+                    this.createCollection(database, archiveCollection.name(), archiveCollection.metadata());
+
+                    final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+                    for (MongoArchiveReader.ArchiveChunk chunk : archiveCollection.chunks()) {
+                        pending.add(decompressors.submit(() -> reader.readChunk(chunk)));
+                        if (pending.size() >= decompressorCount * 2) {
+                            this.addDocuments(sink, awaitChunk(pending.poll()));
+                        }
+                    }
+                    while (!pending.isEmpty()) {
+                        this.addDocuments(sink, awaitChunk(pending.poll()));
+                    }
+
+                    sink.finish();
+                }
+            } finally {
+                decompressors.shutdownNow();
+                pipeline.await();
+            }
+
+            final List<String> collectionNames = new ArrayList<>();
+            final List<Document> metadata = new ArrayList<>();
+            for (MongoArchiveReader.ArchiveCollection archiveCollection : collections) {
+                collectionNames.add(archiveCollection.name());
+                metadata.add(archiveCollection.documentCount() < 0 ? null : archiveCollection.metadata());
+            }
+            this.buildIndexes(database, collectionNames, metadata);
+            this.createViews(database, collectionNames, metadata, dropExisting);
+        }
+    }
+
+    private static byte[] awaitChunk(Future<byte[]> chunk) throws Exception {
+        try {
+            return chunk.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private static boolean isView(Document metadata) {
+        return metadata != null && "view".equals(metadata.getString("type"));
+    }
+
+    private List<Document> collectionMetadata(MongoDatabase database, List<String> collectionNames) {
+        final Map<String, Document> collectionInfos = new HashMap<>();
+        database.listCollections().forEach(info -> collectionInfos.put(info.getString("name"), info));
+
+        final List<Document> metadata = new ArrayList<>();
+        for (String collectionName : collectionNames) {
+            final Document info = collectionInfos.get(collectionName);
+            if (info == null) {
+                metadata.add(null);
+                continue;
+            }
+
+            final List<Document> indexes = new ArrayList<>();
+            if (!"view".equals(info.getString("type"))) {
+                database.getCollection(collectionName).listIndexes().into(indexes);
+            }
+
+            metadata.add(new Document("type", info.getString("type"))
+                    .append("options", info.get("options", new Document()))
+                    .append("indexes", indexes));
+        }
+        return metadata;
+    }
+
+    private void createCollection(MongoDatabase database, String collectionName, Document metadata) {
+        if (metadata == null || isView(metadata)) return;
+
+        // Created up front without secondary indexes, those are built once the data is loaded.
+        final Document command = new Document("create", collectionName);
+        command.putAll(metadata.get("options", new Document()));
+
+        try {
+            database.runCommand(command);
+        } catch (MongoCommandException e) {
+            if (e.getErrorCode() != NAMESPACE_EXISTS) {
+                System.err.println("⚠️ Couldn't create collection " + collectionName + ": " + e.getErrorMessage());
+            }
+        }
+    }
+
+    private void buildIndexes(MongoDatabase database, List<String> collectionNames, List<Document> metadata)
+            throws InterruptedException {
+        final List<Runnable> indexBuilds = new ArrayList<>();
+
+        for (int i = 0; i < collectionNames.size(); i++) {
+            final String collectionName = collectionNames.get(i);
+            if (metadata.get(i) == null) continue;
+
+            final List<Document> indexes = new ArrayList<>();
+            for (Document spec : metadata.get(i).getList("indexes", Document.class, List.of())) {
+                if ("_id_".equals(spec.getString("name"))) continue;
 
-            if (!latch.await(1, TimeUnit.DAYS)) {
-                throw new RuntimeException("Timeout در restore!");
+                final Document index = new Document(spec);
+                index.remove("v");
+                index.remove("ns");
+                indexes.add(index);
             }
+            if (indexes.isEmpty()) continue;
 
-            final long duration = System.currentTimeMillis() - startTime;
-            System.out.println("✨ Restore completed.!");
-            System.out.print("📈 Final statistics:\n");
-            System.out.printf("- Restored collections: %d\n", this.processedCollections.get());
-            System.out.printf("- All documents: %d\n", this.totalDocuments.get());
-            System.out.printf("- Time: %.2f seconds\n", duration / 1000.0);
+            indexBuilds.add(() -> {
+                try {
+                    System.out.printf("🔧 Building %d indexes on %s\n", indexes.size(), collectionName);
+                    database.runCommand(new Document("createIndexes", collectionName)
+                            .append("indexes", indexes));
+                    System.out.printf("✅ Indexes built on %s\n", collectionName);
+                } catch (Exception e) {
+                    System.err.println("❌ Error building indexes on " + collectionName + ": " + e.getMessage());
+                }
+            });
+        }
+
+        final CountDownLatch latch = new CountDownLatch(indexBuilds.size());
+        for (Runnable indexBuild : indexBuilds) {
+            this.executor.submit(() -> {
+                try {
+                    indexBuild.run();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        if (!latch.await(1, TimeUnit.DAYS)) {
+            throw new RuntimeException("Timeout in index build!");
         }
     }
 
+    private void restoreLegacy(MongoDatabase database, String backupPath, boolean dropExisting) throws Exception {
+        try (BufferedInputStream fileInputStream = new BufferedInputStream(new FileInputStream(backupPath));
+             final InputStream decompressedStream = CodecUtil.detect(fileInputStream).newInputStream(fileInputStream);
+             final DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(decompressedStream))) {
+
+            final String header = dataInputStream.readUTF();
+            if (!V1_HEADER.equals(header) && !STREAM_HEADER.equals(header)) {
+                throw new IOException("The backup file format is invalid!");
+            }
+
+            final String backupDbName = dataInputStream.readUTF();
+            final long backupTime = dataInputStream.readLong();
+            final int collectionCount = dataInputStream.readInt();
+
+            System.out.println("📋 Backup information:");
+            System.out.println("- Main database: " + backupDbName);
+            System.out.println("- Backup time: " + new Date(backupTime));
+            System.out.println("- Number of collections: " + collectionCount);
+
+            final MongoInsertPipeline pipeline = this.createInsertPipeline();
+
+            try {
+                if (V1_HEADER.equals(header)) {
+                    this.readCollections(database, pipeline, dataInputStream, collectionCount, dropExisting);
+                } else {
+                    this.readStreamCollections(database, pipeline, dataInputStream, collectionCount, dropExisting);
+                }
+            } finally {
+                pipeline.await();
+            }
+        }
+    }
+
+    public byte[] sampleDocuments(long maxBytes) {
+        final MongoDatabase database = this.database();
+
+        final List<String> collectionNames = new ArrayList<>();
+        database.listCollectionNames().forEach(collectionNames::add);
+        if (collectionNames.isEmpty()) return new byte[0];
+
+        final long perCollection = Math.max(1, maxBytes / collectionNames.size());
+        final BsonChunkBuffer sample = new BsonChunkBuffer((int) Math.min(maxBytes, 64L * 1024 * 1024));
+
+        for (String collectionName : collectionNames) {
+            final long collectionStart = sample.size();
+
+            try (MongoCursor<RawBsonDocument> cursor = database
+                    .getCollection(collectionName, RawBsonDocument.class).find().cursor()) {
+                while (cursor.hasNext() && sample.size() - collectionStart < perCollection) {
+                    sample.append(cursor.next());
+                }
+            }
+        }
+
+        return Arrays.copyOf(sample.array(), sample.size());
+    }
+
     public void shutdown() {
+        // A shared registry outlives this instance, only a private one is closed with it.
+        if (this.ownsClients) this.clients.close();
         this.executor.shutdown();
         try {
             if (!this.executor.awaitTermination(60, TimeUnit.SECONDS)) {
@@ -175,6 +855,97 @@ public class MongoBackupRestore {
         }
     }
 
+    private void readCollections(
+            MongoDatabase database,
+            MongoInsertPipeline pipeline,
+            DataInputStream dataInputStream,
+            int collectionCount,
+            boolean dropExisting
+    ) throws IOException, InterruptedException {
+        for (int i = 0; i < collectionCount; i++) {
+            final byte[] separator = new byte[COLLECTION_SEPARATOR.length];
+            dataInputStream.readFully(separator);
+
+            if (!Arrays.equals(separator, COLLECTION_SEPARATOR)) {
+                throw new IOException("Invalid data format!");
+            }
+
+            // The block length is not needed, documents are handed to the pipeline as they are read.
+            dataInputStream.readInt();
+            final String collectionName = dataInputStream.readUTF();
+            final long documentCount = dataInputStream.readLong();
+
+            final MongoInsertPipeline.Sink sink = this.openCollection(
+                    database, pipeline, collectionName, documentCount, collectionCount, dropExisting
+            );
+
+            for (long j = 0; j < documentCount; j++) {
+                final byte[] docBytes = new byte[dataInputStream.readInt()];
+                dataInputStream.readFully(docBytes);
+                sink.add(new RawBsonDocument(docBytes));
+            }
+
+            sink.finish();
+
+            final byte[] endMarker = new byte[END_COLLECTION.length];
+            dataInputStream.readFully(endMarker);
+
+            if (!Arrays.equals(endMarker, END_COLLECTION)) {
+                throw new IOException("End marker collection not found!");
+            }
+        }
+    }
+
+    private void readStreamCollections(
+            MongoDatabase database,
+            MongoInsertPipeline pipeline,
+            DataInputStream dataInputStream,
+            int collectionCount,
+            boolean dropExisting
+    ) throws IOException, InterruptedException {
+        final String[] collectionNames = new String[collectionCount];
+        for (int i = 0; i < collectionCount; i++) {
+            collectionNames[i] = dataInputStream.readUTF();
+        }
+
+        final MongoInsertPipeline.Sink[] sinks = new MongoInsertPipeline.Sink[collectionCount];
+
+        int collectionIndex;
+        while ((collectionIndex = dataInputStream.readInt()) != -1) {
+            if (collectionIndex < 0 || collectionIndex >= collectionCount) {
+                throw new IOException("Invalid data format!");
+            }
+
+            final int length = dataInputStream.readInt();
+            if (length == -1) {
+                final long documentCount = dataInputStream.readLong();
+
+                if (documentCount < 0) {
+                    System.out.println("⚠️ Incomplete collection in backup: " + collectionNames[collectionIndex]);
+                    if (sinks[collectionIndex] == null) continue;
+                } else if (sinks[collectionIndex] == null) {
+                    sinks[collectionIndex] = this.openCollection(
+                            database, pipeline, collectionNames[collectionIndex], documentCount, collectionCount,
+                            dropExisting
+                    );
+                }
+
+                sinks[collectionIndex].finish();
+                continue;
+            }
+
+            if (sinks[collectionIndex] == null) {
+                sinks[collectionIndex] = this.openCollection(
+                        database, pipeline, collectionNames[collectionIndex], -1, collectionCount, dropExisting
+                );
+            }
+
+            final byte[] frame = new byte[length];
+            dataInputStream.readFully(frame);
+            this.addDocuments(sinks[collectionIndex], frame);
+        }
+    }
+
     private ByteArrayOutputStream backupCollection(MongoDatabase database, String collectionName) throws IOException {
         final MongoCollection<RawBsonDocument> collection = database
                 .getCollection(collectionName, RawBsonDocument.class);
@@ -185,37 +956,42 @@ public class MongoBackupRestore {
         final long count = collection.countDocuments();
         stream.writeLong(count);
 
-        final AtomicInteger docCount = new AtomicInteger(0);
+        long docCount = 0;
 
-        try (MongoCursor<RawBsonDocument> cursor = collection.find().cursor()) {
+        try (MongoCursor<RawBsonDocument> cursor = this.withBatchSize(collection.find()).cursor()) {
             while (cursor.hasNext()) {
-                final byte[] bsonBytes = cursor.next().getByteBuffer().array();
+                final ByteBuffer bson = cursor.next().getByteBuffer().asNIO();
 
-                stream.writeInt(bsonBytes.length);
-                stream.write(bsonBytes);
+                stream.writeInt(bson.remaining());
+                stream.write(bson.array(), bson.arrayOffset() + bson.position(), bson.remaining());
 
-                docCount.incrementAndGet();
-                this.totalDocuments.incrementAndGet();
-
-                if (docCount.get() % 1000 == 0) {
-                    System.out.printf("📄 %s: %d/%d document\n", collectionName, docCount.get(), count);
+                if (++docCount % 1000 == 0) {
+                    System.out.printf("📄 %s: %d/%d document\n", collectionName, docCount, count);
                 }
             }
         }
 
+        this.totalDocuments.add(docCount);
+
         stream.flush();
         return byteArrayOutputStream;
     }
 
+    private OutputStream openOutput(String outputPath) throws IOException {
+        return this.partListener != null
+                ? new SplitFileOutputStream(outputPath, this.partListener)
+                : new FileOutputStream(outputPath);
+    }
+
     private void writeCompressedBackup(String outputPath, Map<String, ByteArrayOutputStream> collectionData)
             throws IOException {
-        try (FileOutputStream fos = new FileOutputStream(outputPath);
-             final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(fos) {{
-                 def.setLevel(9);
-             }};
-             final DataOutputStream outputStream = new DataOutputStream(gzipOutputStream)) {
+        try (OutputStream fos = this.openOutput(outputPath);
+             final ParallelCompressorOutputStream compressorOutputStream = new ParallelCompressorOutputStream(
+                     fos, this.codec, this.blockSize, Runtime.getRuntime().availableProcessors()
+             );
+             final DataOutputStream outputStream = new DataOutputStream(compressorOutputStream)) {
 
-            outputStream.writeUTF("MR_MONGO_BACKUP_V1");
+            outputStream.writeUTF(V1_HEADER);
             outputStream.writeUTF(this.databaseName);
             outputStream.writeLong(System.currentTimeMillis());
             outputStream.writeInt(collectionData.size());
@@ -232,52 +1008,253 @@ public class MongoBackupRestore {
         }
     }
 
-    private void restoreCollection(MongoDatabase database, byte[] data, boolean dropExisting) throws IOException {
-        final ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(data);
-        final DataInputStream dataInputStream = new DataInputStream(byteArrayInputStream);
+    private List<CollectionPartition> planPartitions(MongoDatabase database, String collectionName) {
+        System.out.println("⚙️ Collection processing: " + collectionName);
+        if (this.partitionSize <= 0) return List.of(CollectionPartition.FULL);
 
-        final String collectionName = dataInputStream.readUTF();
-        final long documentCount = dataInputStream.readLong();
+        try {
+            final Document stats = database.runCommand(new Document("collStats", collectionName));
+            final long size = ((Number) stats.get("size")).longValue();
+            if (size <= this.partitionSize) return List.of(CollectionPartition.FULL);
 
-        System.out.printf("⚙️ Restore Collection: %s (%d documents)\n", collectionName, documentCount);
+            final int partitionCount = (int) Math.min(
+                    MAX_PARTITIONS, (size + this.partitionSize - 1) / this.partitionSize
+            );
+            List<Object> boundaries = this.splitVectorBoundaries(database, collectionName, partitionCount);
+            if (boundaries.isEmpty()) {
+                boundaries = this.sampleBoundaries(database, collectionName, partitionCount);
+            }
+            if (boundaries.isEmpty()) return List.of(CollectionPartition.FULL);
 
-        final MongoCollection<RawBsonDocument> collection = database.getCollection(collectionName, RawBsonDocument.class);
+            final List<CollectionPartition> partitions = new ArrayList<>();
+            Object lower = null;
+            for (Object boundary : boundaries) {
+                partitions.add(new CollectionPartition(lower, boundary));
+                lower = boundary;
+            }
+            partitions.add(new CollectionPartition(lower, null));
+            return partitions;
+        } catch (Exception e) {
+            System.out.println("⚠️ Couldn't partition " + collectionName + ", reading it with one cursor: "
+                               + e.getMessage());
+            return List.of(CollectionPartition.FULL);
+        }
+    }
 
-        if (dropExisting) {
-            collection.drop();
-            System.out.println("🗑️ Previous collection deleted: " + collectionName);
+    private List<Object> splitVectorBoundaries(MongoDatabase database, String collectionName, int partitionCount) {
+        try {
+            final Document result = database.runCommand(
+                    new Document("splitVector", this.databaseName + "." + collectionName)
+                            .append("keyPattern", new Document("_id", 1))
+                            .append("maxChunkSizeBytes", this.partitionSize)
+            );
+
+            final List<Document> splitKeys = result.getList("splitKeys", Document.class, List.of());
+            final List<Object> boundaries = new ArrayList<>();
+            // splitVector cuts at half the chunk size and has no cap, so keep evenly spaced keys up to the count.
+            final int boundaryCount = Math.min(splitKeys.size(), partitionCount - 1);
+            for (int i = 1; i <= boundaryCount; i++) {
+                boundaries.add(splitKeys.get((int) ((long) i * (splitKeys.size() + 1) / (boundaryCount + 1)) - 1)
+                        .get("_id"));
+            }
+            return boundaries;
+        } catch (MongoException e) {
+            // splitVector needs cluster privileges and is not available through mongos, fall back to sampling.
+            return List.of();
         }
+    }
 
-        final List<RawBsonDocument> batch = new ArrayList<>();
-        int restored = 0;
+    private List<Object> sampleBoundaries(MongoDatabase database, String collectionName, int partitionCount) {
+        final List<Object> sampledIds = new ArrayList<>();
+        database.getCollection(collectionName).aggregate(List.of(
+                        Aggregates.sample(partitionCount * SAMPLES_PER_PARTITION),
+                        Aggregates.project(Projections.include("_id")),
+                        Aggregates.sort(Sorts.ascending("_id"))
+                )).allowDiskUse(true)
+                .forEach(document -> sampledIds.add(document.get("_id")));
 
-        for (long i = 0; i < documentCount; i++) {
-            final int docLength = dataInputStream.readInt();
-            final byte[] docBytes = new byte[docLength];
-            dataInputStream.readFully(docBytes);
+        final List<Object> boundaries = new ArrayList<>();
+        for (int i = SAMPLES_PER_PARTITION; i < sampledIds.size(); i += SAMPLES_PER_PARTITION) {
+            final Object boundary = sampledIds.get(i);
+            if (boundaries.isEmpty() || !boundaries.get(boundaries.size() - 1).equals(boundary)) {
+                boundaries.add(boundary);
+            }
+        }
+        return boundaries;
+    }
 
-            final RawBsonDocument rawBsonDocument = new RawBsonDocument(docBytes);
-            batch.add(rawBsonDocument);
+    private void streamCollection(
+            MongoDatabase database,
+            String collectionName,
+            int collectionIndex,
+            CollectionPartition partition,
+            AtomicLong collectionDocuments,
+            BlockingQueue<StreamBlock> queue
+    ) throws IOException, InterruptedException {
+        final MongoCollection<RawBsonDocument> collection = database
+                .getCollection(collectionName, RawBsonDocument.class);
+        final BsonChunkBuffer chunk = this.chunkBuffers.get();
+        chunk.reset();
 
-            if (batch.size() >= 1000) {
-                collection.insertMany(batch);
-                restored += batch.size();
-                this.totalDocuments.addAndGet(batch.size());
-                batch.clear();
-                System.out.printf("📄 %s: %d/%d documents restored\n", collectionName, restored, documentCount);
+        final long count = collection.estimatedDocumentCount();
+
+        try (MongoCursor<RawBsonDocument> cursor = this.findPartition(collection, partition).cursor()) {
+            while (cursor.hasNext()) {
+                chunk.append(cursor.next());
+
+                if (chunk.size() >= this.blockSize) {
+                    this.flushChunk(collectionName, collectionIndex, chunk, count, collectionDocuments, queue);
+                }
             }
         }
 
-        if (!batch.isEmpty()) {
-            collection.insertMany(batch);
-            restored += batch.size();
-            this.totalDocuments.addAndGet(batch.size());
+        if (chunk.size() > 0) {
+            this.flushChunk(collectionName, collectionIndex, chunk, count, collectionDocuments, queue);
         }
+    }
+
+    private FindIterable<RawBsonDocument> findPartition(
+            MongoCollection<RawBsonDocument> collection,
+            CollectionPartition partition
+    ) {
+        FindIterable<RawBsonDocument> findIterable = this.withBatchSize(collection.find());
+        if (partition != CollectionPartition.FULL) {
+            // Index bounds instead of $gte/$lt so documents whose _id has a different BSON type are not skipped.
+            findIterable = findIterable.hint(new Document("_id", 1));
+            if (partition.min() != null) findIterable = findIterable.min(new Document("_id", partition.min()));
+            if (partition.max() != null) findIterable = findIterable.max(new Document("_id", partition.max()));
+        }
+        return findIterable;
+    }
+
+    private FindIterable<RawBsonDocument> withBatchSize(FindIterable<RawBsonDocument> findIterable) {
+        // 0 keeps the server default of 101 documents, then 16 MB per getMore.
+        return this.batchSize > 0 ? findIterable.batchSize(this.batchSize) : findIterable;
+    }
+
+    private void flushChunk(
+            String collectionName,
+            int collectionIndex,
+            BsonChunkBuffer chunk,
+            long count,
+            AtomicLong collectionDocuments,
+            BlockingQueue<StreamBlock> queue
+    ) throws IOException, InterruptedException {
+        // Shared counters are only touched once per chunk instead of once per document.
+        final long docCount = collectionDocuments.addAndGet(chunk.documentCount());
+        this.totalDocuments.add(chunk.documentCount());
+
+        queue.put(new StreamBlock(
+                collectionIndex, this.codec.compress(chunk.array(), 0, chunk.size()), chunk.size(),
+                chunk.documentCount()
+        ));
+        chunk.reset();
+
+        System.out.printf("📄 %s: %d/%d document\n", collectionName, docCount, count);
+    }
+
+    private void writeArchive(
+            String outputPath,
+            List<String> collectionNames,
+            List<Document> metadata,
+            BlockingQueue<StreamBlock> queue
+    ) throws IOException, InterruptedException {
+        int remaining = collectionNames.size();
+        IOException failure = null;
+
+        try (MongoArchiveWriter writer = new MongoArchiveWriter(
+                this.openOutput(outputPath), this.databaseName, this.codec, collectionNames
+        )) {
+            for (int i = 0; i < metadata.size(); i++) {
+                writer.setMetadata(i, metadata.get(i));
+            }
+
+            while (remaining > 0) {
+                final StreamBlock block = queue.take();
+
+                if (block.data() == null) {
+                    writer.finishCollection(block.collectionIndex(), block.documentCount());
+                    remaining--;
+                } else {
+                    writer.writeChunk(
+                            block.collectionIndex(), block.data(), block.rawSize(), (int) block.documentCount()
+                    );
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        // Keep draining so workers never block on a writer that has already failed.
+        while (remaining > 0) {
+            if (queue.take().data() == null) remaining--;
+        }
+
+        if (failure != null) throw failure;
+    }
+
+    private MongoInsertPipeline.Sink openCollection(
+            MongoDatabase database,
+            MongoInsertPipeline pipeline,
+            String collectionName,
+            long documentCount,
+            int collectionCount,
+            boolean dropExisting
+    ) {
+        if (documentCount >= 0) {
+            System.out.printf("⚙️ Restore Collection: %s (%d documents)\n", collectionName, documentCount);
+        } else {
+            System.out.printf("⚙️ Restore Collection: %s\n", collectionName);
+        }
+
+        final MongoCollection<RawBsonDocument> collection = database
+                .getCollection(collectionName, RawBsonDocument.class);
+
+        if (dropExisting) {
+            collection.drop();
+            System.out.println("🗑️ Previous collection deleted: " + collectionName);
+        }
+
+        return pipeline.open(collectionName, collection, restored -> {
+            this.totalDocuments.add(restored);
+            System.out.printf("✅ %s: All %d documents restored\n", collectionName, restored);
+            System.out.printf("✅ Restore collection %d/%d completed.\n",
+                    this.processedCollections.incrementAndGet(), collectionCount);
+        });
+    }
+
+    private void addDocuments(MongoInsertPipeline.Sink sink, byte[] data) throws InterruptedException {
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+
+        while (buffer.hasRemaining()) {
+            final int docLength = buffer.getInt();
+            sink.add(new RawBsonDocument(data, buffer.position(), docLength));
+            buffer.position(buffer.position() + docLength);
+        }
+    }
+
+    private MongoInsertPipeline createInsertPipeline() {
+        return new MongoInsertPipeline(
+                this.executor,
+                this.parallelism(),
+                new InsertManyOptions()
+                        .ordered(this.orderedInserts)
+                        .bypassDocumentValidation(this.bypassDocumentValidation),
+                this.maxBatchBytes
+        );
+    }
+
+    private int parallelism() {
+        return this.executor instanceof ThreadPoolExecutor pool
+                ? pool.getCorePoolSize()
+                : Runtime.getRuntime().availableProcessors();
+    }
 
-        System.out.printf("✅ %s: All %d documents restored\n", collectionName, restored);
+    private record CollectionPartition(Object min, Object max) {
+        private static final CollectionPartition FULL = new CollectionPartition(null, null);
     }
 
-    private record RestoreTask(byte[] data) {
+    private record StreamBlock(int collectionIndex, byte[] data, int rawSize, long documentCount) {
 
     }
 }
\ No newline at end of file
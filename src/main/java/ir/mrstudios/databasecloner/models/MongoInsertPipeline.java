@@ -0,0 +1,177 @@
+package ir.mrstudios.databasecloner.models;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.RawBsonDocument;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+
+public class MongoInsertPipeline {
+
+    private static final int MIN_BATCH_BYTES = 256 * 1024;
+    private static final int MAX_BATCH_DOCUMENTS = 100_000;
+    private static final int MAX_QUEUED_BYTES = 256 * 1024 * 1024;
+    private static final long TARGET_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final Batch POISON = new Batch(null, null, 0);
+
+    private final BlockingQueue<Batch> queue;
+    private final Semaphore queuedBytes = new Semaphore(MAX_QUEUED_BYTES);
+    private final InsertManyOptions insertOptions;
+    private final int maxBatchBytes;
+    private final List<Future<?>> workers = new ArrayList<>();
+    private final AtomicLong insertedDocuments = new AtomicLong();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    public MongoInsertPipeline(
+            ExecutorService executor,
+            int workers,
+            InsertManyOptions insertOptions,
+            int maxBatchBytes
+    ) {
+        this.queue = new ArrayBlockingQueue<>(workers * 2);
+        this.insertOptions = insertOptions;
+        // Queued and in-flight batches share one byte budget, so a batch may take at most its share of it.
+        this.maxBatchBytes = Math.max(MIN_BATCH_BYTES, Math.min(maxBatchBytes, MAX_QUEUED_BYTES / (workers * 3)));
+
+        for (int i = 0; i < workers; i++) {
+            this.workers.add(executor.submit(this::drain));
+        }
+    }
+
+    public Sink open(String collectionName, MongoCollection<RawBsonDocument> collection, LongConsumer onComplete) {
+        return new Sink(collectionName, collection, onComplete);
+    }
+
+    public long getInsertedDocuments() {
+        return this.insertedDocuments.get();
+    }
+
+    public void await() throws InterruptedException, IOException {
+        for (int i = 0; i < this.workers.size(); i++) {
+            this.queue.put(POISON);
+        }
+
+        for (Future<?> worker : this.workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                this.failure.compareAndSet(null, e.getCause() instanceof Exception cause ? cause : e);
+                System.err.println("❌ Insert worker failed: " + e.getCause().getMessage());
+            }
+        }
+
+        // Workers only log their errors, the caller must not report a restore with rejected documents as done.
+        if (this.failure.get() != null) {
+            throw new IOException("Restore incomplete, first error: " + this.failure.get().getMessage(),
+                    this.failure.get());
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            final Batch batch;
+            try {
+                batch = this.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (batch == POISON) return;
+
+            final Sink sink = batch.sink();
+            try {
+                final long start = System.nanoTime();
+                sink.collection.insertMany(batch.documents(), this.insertOptions);
+                sink.adapt(System.nanoTime() - start);
+
+                sink.insertedDocuments.addAndGet(batch.documents().size());
+                this.insertedDocuments.addAndGet(batch.documents().size());
+            } catch (MongoBulkWriteException e) {
+                this.failure.compareAndSet(null, e);
+                final int inserted = e.getWriteResult().getInsertedCount();
+                sink.insertedDocuments.addAndGet(inserted);
+                this.insertedDocuments.addAndGet(inserted);
+                System.err.printf("❌ Error in restore %s: %d documents rejected, first error: %s\n",
+                        sink.collectionName, batch.documents().size() - inserted,
+                        e.getWriteErrors().isEmpty() ? e.getMessage() : e.getWriteErrors().get(0).getMessage());
+            } catch (Exception e) {
+                this.failure.compareAndSet(null, e);
+                System.err.println("❌ Error in restore " + sink.collectionName + ": " + e.getMessage());
+            } finally {
+                this.queuedBytes.release(batch.bytes());
+                sink.release();
+            }
+        }
+    }
+
+    public class Sink {
+
+        private final String collectionName;
+        private final MongoCollection<RawBsonDocument> collection;
+        private final LongConsumer onComplete;
+        private final AtomicInteger pendingBatches = new AtomicInteger(1);
+        private final AtomicLong insertedDocuments = new AtomicLong();
+        private volatile int targetBatchBytes = MIN_BATCH_BYTES * 4;
+        private List<RawBsonDocument> batch = new ArrayList<>();
+        private int batchBytes;
+
+        private Sink(String collectionName, MongoCollection<RawBsonDocument> collection, LongConsumer onComplete) {
+            this.collectionName = collectionName;
+            this.collection = collection;
+            this.onComplete = onComplete;
+        }
+
+        public void add(RawBsonDocument document) throws InterruptedException {
+            this.batch.add(document);
+            this.batchBytes += document.getByteBuffer().remaining();
+
+            if (this.batchBytes >= this.targetBatchBytes || this.batch.size() >= MAX_BATCH_DOCUMENTS) {
+                this.flush();
+            }
+        }
+
+        public void finish() throws InterruptedException {
+            this.flush();
+            this.release();
+        }
+
+        private void flush() throws InterruptedException {
+            if (this.batch.isEmpty()) return;
+
+            // A single oversized document must not wait for more permits than the budget has.
+            final int bytes = Math.min(this.batchBytes, MAX_QUEUED_BYTES);
+            MongoInsertPipeline.this.queuedBytes.acquire(bytes);
+            this.pendingBatches.incrementAndGet();
+            MongoInsertPipeline.this.queue.put(new Batch(this, this.batch, bytes));
+            this.batch = new ArrayList<>(this.batch.size());
+            this.batchBytes = 0;
+        }
+
+        private void adapt(long latencyNanos) {
+            // Grow batches while round trips are cheap, shrink them when the server starts to take its time.
+            if (latencyNanos < TARGET_LATENCY_NANOS / 2) {
+                this.targetBatchBytes = Math.min(MongoInsertPipeline.this.maxBatchBytes, this.targetBatchBytes * 2);
+            } else if (latencyNanos > TARGET_LATENCY_NANOS * 2) {
+                this.targetBatchBytes = Math.max(MIN_BATCH_BYTES, this.targetBatchBytes / 2);
+            }
+        }
+
+        private void release() {
+            if (this.pendingBatches.decrementAndGet() == 0) {
+                this.onComplete.accept(this.insertedDocuments.get());
+            }
+        }
+    }
+
+    private record Batch(Sink sink, List<RawBsonDocument> documents, int bytes) {
+    }
+}
@@ -1,23 +1,83 @@
 package ir.mrstudios.databasecloner.models;
 
+import com.mysql.cj.jdbc.JdbcStatement;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import ir.mrstudios.databasecloner.codecs.Codec;
+import ir.mrstudios.databasecloner.codecs.NoneCodec;
+import ir.mrstudios.databasecloner.streams.ParallelCompressorOutputStream;
+import ir.mrstudios.databasecloner.streams.SplitFileOutputStream;
+import ir.mrstudios.databasecloner.streams.SqlStatementReader;
+import ir.mrstudios.databasecloner.utils.CodecUtil;
+import lombok.Setter;
 
 import javax.sql.DataSource;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 public class MySQLBackupRestore {
 
+    private final String host;
+    private final int port;
+    private final String database;
+    private final String username;
+    private final String password;
+    private final String jdbcUrl;
     private final DataSource dataSource;
     private final ExecutorService executor;
-    private final Lock fileLock = new ReentrantLock();
+
+    @Setter
+    private Codec codec = new NoneCodec();
+    @Setter
+    private int blockSize = 1024 * 1024;
+    @Setter
+    private int fetchSize = 1000;
+    @Setter
+    private long chunkRows = 1_000_000;
+    @Setter
+    private boolean globalReadLock = true;
+    @Setter
+    private String format = "sql";
+    @Setter
+    private SplitFileOutputStream.PartListener partListener;
+
+    private String snapshotBinlogFile;
+    private long snapshotBinlogPosition;
+
+    private static final int ROWS_PER_INSERT = 1000;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final String TSV_SCHEMA = "schema.sql";
+    private static final String TSV_EXTENSION = ".tsv";
+    private static final Pattern TSV_FILE_PATTERN = Pattern.compile("(.+)\\.\\d{5}\\.tsv(\\..+)?");
+    private static final int MAX_CHUNKS = 1024;
+    private static final int RESTORE_BATCH_BYTES = 4 * 1024 * 1024;
+    private static final Pattern INSERT_PATTERN = Pattern.compile(
+            "INSERT\\s+(?:IGNORE\\s+)?INTO\\s+`?([^`\\s(]+)`?", Pattern.CASE_INSENSITIVE
+    );
+    private static final Pattern CREATE_TABLE_PATTERN = Pattern.compile(
+            "CREATE\\s+TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?`?([^`\\s(]+)`?", Pattern.CASE_INSENSITIVE
+    );
+    private static final Pattern SESSION_PATTERN = Pattern.compile(
+            "(SET\\s|START\\s+TRANSACTION|BEGIN|COMMIT|LOCK\\s+TABLES|UNLOCK\\s+TABLES)",
+            Pattern.CASE_INSENSITIVE
+    );
+    private static final Pattern SECONDARY_KEY_PATTERN = Pattern.compile(
+            "(?:UNIQUE\\s+|FULLTEXT\\s+|SPATIAL\\s+)?(?:KEY|INDEX)\\s", Pattern.CASE_INSENSITIVE
+    );
+    private static final Pattern QUOTED_NAME_PATTERN = Pattern.compile("`((?:[^`]|``)+)`");
 
     public MySQLBackupRestore(
             String host,
@@ -28,11 +88,12 @@ public class MySQLBackupRestore {
             int threadPoolSize,
             ExecutorService executor
     ) {
+        this.jdbcUrl = "jdbc:mysql://" + host + ":" + port + "/" + database +
+                       "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC&useCursorFetch=true" +
+                       "&rewriteBatchedStatements=true&yearIsDateType=false&tinyInt1isBit=false";
+
         final HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(
-                "jdbc:mysql://" + host + ":" + port + "/" + database +
-                "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC"
-        );
+        config.setJdbcUrl(this.jdbcUrl);
         config.setUsername(username);
         config.setPassword(password);
         config.setMaximumPoolSize(threadPoolSize + 2);
@@ -42,11 +103,16 @@ public class MySQLBackupRestore {
         config.setMaxLifetime(1800000);
         config.setLeakDetectionThreshold(60000);
 
+        this.host = host;
+        this.port = port;
+        this.database = database;
+        this.username = username;
+        this.password = password;
         this.dataSource = new HikariDataSource(config);
         this.executor = executor;
     }
 
-    public void backup(String filePath) throws SQLException, IOException {
+    public void backup(String filePath) throws SQLException, IOException, InterruptedException {
         final List<String> tables = getTables();
 
         if (tables.isEmpty()) {
@@ -56,66 +122,285 @@ public class MySQLBackupRestore {
 
         System.out.println("📋 Found " + tables.size() + " tables to backup.");
 
-        final List<Future<TableBackupResult>> futures = new ArrayList<>();
-        final CountDownLatch latch = new CountDownLatch(tables.size());
+        final Map<String, List<TableChunk>> tableChunks = this.planChunks(tables);
+        final MySQLSnapshot snapshot = new MySQLSnapshot(
+                this.dataSource, tables, this.parallelism(), this.globalReadLock
+        );
+        this.snapshotBinlogFile = snapshot.getBinlogFile();
+        this.snapshotBinlogPosition = snapshot.getBinlogPosition();
 
-        for (final String table : tables) {
-            final Future<TableBackupResult> future = this.executor.submit(() -> {
-                try {
-                    return processTable(table);
-                } finally {
-                    latch.countDown();
+        try {
+            if ("tsv".equalsIgnoreCase(this.format)) {
+                this.backupTsv(filePath, tables, tableChunks, snapshot);
+            } else {
+                this.backupSql(filePath, tables, tableChunks, snapshot);
+            }
+        } finally {
+            snapshot.close();
+        }
+    }
+
+    public String incrementalBackup(String fullPath, String deltaPath, Path statePath, long fullIntervalMillis)
+            throws Exception {
+        final Properties state = new Properties();
+        if (Files.exists(statePath)) {
+            try (final Reader reader = Files.newBufferedReader(statePath)) {
+                state.load(reader);
+            }
+        }
+
+        final boolean fullDue = state.getProperty("binlog-file") == null
+                                || System.currentTimeMillis() - Long.parseLong(state.getProperty("last-full"))
+                                   >= fullIntervalMillis;
+
+        if (!fullDue) {
+            try {
+                final MySQLSnapshot.BinlogPosition end = new MySQLBinlogDelta(
+                        this.host, this.port, this.username, this.password, this.database, this.dataSource, this.codec
+                ).capture(deltaPath, state.getProperty("binlog-file"),
+                        Long.parseLong(state.getProperty("binlog-position")));
+
+                state.setProperty("binlog-file", end.file());
+                state.setProperty("binlog-position", String.valueOf(end.position()));
+                this.storeState(statePath, state);
+                return deltaPath;
+            } catch (Exception e) {
+                // Purged binlogs, a schema change or a lost connection all leave a gap only a full backup can close.
+                System.err.println("⚠️ Incremental backup failed, taking a new full backup: " + e.getMessage());
+                Files.deleteIfExists(Path.of(deltaPath));
+            }
+        }
+
+        this.snapshotBinlogFile = null;
+        this.backup(fullPath);
+        if (this.snapshotBinlogFile == null) {
+            throw new IOException("The full backup has no binlog position, incremental backups need binary logging.");
+        }
+
+        state.setProperty("binlog-file", this.snapshotBinlogFile);
+        state.setProperty("binlog-position", String.valueOf(this.snapshotBinlogPosition));
+        state.setProperty("last-full", String.valueOf(System.currentTimeMillis()));
+        state.setProperty("base", fullPath);
+        this.storeState(statePath, state);
+        return fullPath;
+    }
+
+    private void storeState(Path statePath, Properties state) throws IOException {
+        try (final Writer writer = Files.newBufferedWriter(statePath)) {
+            state.store(writer, "MR MySQL incremental backup state");
+        }
+    }
+
+    public void replayDeltas(List<String> deltaPaths, long stopAtMillis) throws Exception {
+        try (final Connection conn = this.dataSource.getConnection();
+             final Statement stmt = conn.createStatement()) {
+            this.prepareRestoreSession(stmt);
+            // Temporal values are logged in UTC, TIMESTAMP columns must read them the same way.
+            stmt.execute("SET SESSION time_zone = '+00:00'");
+            conn.setAutoCommit(false);
+
+            MySQLBinlogDelta.DeltaRange previous = null;
+            try {
+                for (String deltaPath : deltaPaths) {
+                    final MySQLBinlogDelta.DeltaRange range = MySQLBinlogDelta.replay(
+                            conn, deltaPath, previous, stopAtMillis
+                    );
+                    previous = range;
+
+                    if (range.stopped()) {
+                        System.out.println("⏹️ Reached the requested point in time.");
+                        break;
+                    }
                 }
-            });
-            futures.add(future);
+            } catch (Exception e) {
+                // Turning auto-commit back on would commit the half-applied transaction, roll it back first.
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
+    }
+
+    private void backupSql(
+            String filePath,
+            List<String> tables,
+            Map<String, List<TableChunk>> tableChunks,
+            MySQLSnapshot snapshot
+    ) throws IOException, InterruptedException {
+        final Path spillDirectory = Path.of(filePath).toAbsolutePath().getParent();
+        final List<TableDump> dumps = new ArrayList<>();
+
+        for (final String table : tables) {
+            final List<TableChunk> chunks = this.chunksOf(table, tableChunks);
+
+            final List<Future<Path>> parts = new ArrayList<>();
+            for (int i = 0; i < chunks.size(); i++) {
+                final TableChunk chunk = chunks.get(i);
+                final boolean first = i == 0;
+                final boolean last = i == chunks.size() - 1;
 
-        try (final FileWriter writer = new FileWriter(filePath, false)) {
-            writer.write("-- MR MySQL Database Backup\n");
-            writer.write("-- Generated on: " + new java.util.Date() + "\n");
-            writer.write("-- Total tables: " + tables.size() + "\n\n");
+                parts.add(this.executor.submit(() -> this.processChunk(
+                        snapshot, table, chunk, first, last, spillDirectory
+                )));
+            }
+            dumps.add(new TableDump(table, parts));
+        }
+
+        try (final OutputStream output = this.openOutput(filePath);
+             final Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
+            this.writeHeader(writer, tables, snapshot);
             writer.write("SET FOREIGN_KEY_CHECKS=0;\n");
             writer.write("SET SQL_MODE = \"NO_AUTO_VALUE_ON_ZERO\";\n");
             writer.write("SET AUTOCOMMIT = 0;\n");
             writer.write("START TRANSACTION;\n\n");
 
             int completedTables = 0;
-            for (final Future<TableBackupResult> future : futures) {
-                try {
-                    final TableBackupResult result = future.get();
+            for (final TableDump dump : dumps) {
+                // Parts are merged in submission order, which keeps chunked tables in key order.
+                for (final Future<Path> part : dump.parts()) {
+                    final Path spillFile = this.awaitPart(part, dump.tableName());
 
-                    fileLock.lock();
                     try {
-                        writer.write(result.content());
                         writer.flush();
-                        completedTables++;
-                        System.out.println("✅ Completed backup for table: " + result.tableName() +
-                                           " (" + completedTables + "/" + tables.size() + ")");
+                        Files.copy(spillFile, output);
                     } finally {
-                        fileLock.unlock();
+                        Files.deleteIfExists(spillFile);
                     }
-
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    System.err.println("❌ Backup interrupted for a table");
-                } catch (ExecutionException e) {
-                    System.err.println("❌ Error processing table: " + e.getCause().getMessage());
                 }
+
+                completedTables++;
+                System.out.println("✅ Completed backup for table: " + dump.tableName() +
+                                   " (" + completedTables + "/" + tables.size() + ")");
             }
 
             writer.write("\nCOMMIT;\n");
             writer.write("SET FOREIGN_KEY_CHECKS=1;\n");
-            System.out.println("🎉 Backup completed successfully! File: " + filePath);
+        } catch (IOException | InterruptedException e) {
+            this.discardParts(dumps, true);
+            throw e;
         }
 
+        System.out.println("🎉 Backup completed successfully! File: " + filePath);
+    }
+
+    private <T> T awaitPart(Future<T> part, String tableName) throws IOException, InterruptedException {
         try {
-            latch.await(5, TimeUnit.MINUTES);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            System.err.println("⚠️ Warning: Backup process was interrupted");
+            return part.get();
+        } catch (ExecutionException e) {
+            // A missing chunk makes the whole dump unusable, so it fails the backup instead of being skipped.
+            throw new IOException("Error processing table " + tableName + ": " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+    }
+
+    private void discardParts(List<TableDump> dumps, boolean spillFiles) {
+        for (final TableDump dump : dumps) {
+            for (final Future<Path> part : dump.parts()) {
+                if (part.cancel(true) || !spillFiles || !part.isDone()) continue;
+
+                try {
+                    Files.deleteIfExists(part.get());
+                } catch (Exception ignored) {
+                    // Failed parts already removed their own spill file.
+                }
+            }
         }
     }
 
+    private void backupTsv(
+            String directoryPath,
+            List<String> tables,
+            Map<String, List<TableChunk>> tableChunks,
+            MySQLSnapshot snapshot
+    ) throws IOException, SQLException, InterruptedException {
+        final Path directory = Files.createDirectories(Path.of(directoryPath));
+        final List<TableDump> dumps = new ArrayList<>();
+
+        for (final String table : tables) {
+            final List<TableChunk> chunks = this.chunksOf(table, tableChunks);
+
+            final List<Future<Path>> parts = new ArrayList<>();
+            for (int i = 0; i < chunks.size(); i++) {
+                final TableChunk chunk = chunks.get(i);
+                final Path dataFile = directory.resolve(
+                        String.format("%s.%05d%s%s", table, i, TSV_EXTENSION, this.codec.getExtension())
+                );
+
+                parts.add(this.executor.submit(() -> this.processTsvChunk(snapshot, table, chunk, dataFile)));
+            }
+            dumps.add(new TableDump(table, parts));
+        }
+
+        // The schema is read on a snapshot connection too, so it matches the data files.
+        final Connection conn = snapshot.acquire();
+        try (final Writer writer = Files.newBufferedWriter(directory.resolve(TSV_SCHEMA), StandardCharsets.UTF_8)) {
+            this.writeHeader(writer, tables, snapshot);
+            for (final String table : tables) {
+                this.generateTableStructure(conn, table, writer);
+            }
+        } finally {
+            snapshot.release(conn);
+        }
+
+        int completedTables = 0;
+        try {
+            for (final TableDump dump : dumps) {
+                for (final Future<Path> part : dump.parts()) {
+                    this.awaitPart(part, dump.tableName());
+                }
+
+                completedTables++;
+                System.out.println("✅ Completed backup for table: " + dump.tableName() +
+                                   " (" + completedTables + "/" + tables.size() + ")");
+            }
+        } catch (IOException | InterruptedException e) {
+            this.discardParts(dumps, false);
+            throw e;
+        }
+
+        System.out.println("🎉 Backup completed successfully! Directory: " + directoryPath);
+    }
+
+    private List<TableChunk> chunksOf(String table, Map<String, List<TableChunk>> tableChunks) {
+        final List<TableChunk> chunks = tableChunks.getOrDefault(table, List.of(TableChunk.FULL));
+        if (chunks.size() > 1) {
+            System.out.println("🧩 Table " + table + " split into " + chunks.size() + " key ranges.");
+        }
+        return chunks;
+    }
+
+    private void writeHeader(Writer writer, List<String> tables, MySQLSnapshot snapshot) throws IOException {
+        writer.write("-- MR MySQL Database Backup\n");
+        writer.write("-- Generated on: " + new java.util.Date() + "\n");
+        writer.write("-- Total tables: " + tables.size() + "\n");
+        writer.write("-- Snapshot lock: " + snapshot.getLockMode() + "\n");
+        if (snapshot.getBinlogFile() != null) {
+            writer.write("-- Binlog position: " + snapshot.getBinlogFile() + ":"
+                         + snapshot.getBinlogPosition() + "\n");
+            writer.write("-- CHANGE MASTER TO MASTER_LOG_FILE='" + snapshot.getBinlogFile()
+                         + "', MASTER_LOG_POS=" + snapshot.getBinlogPosition() + ";\n");
+        }
+        if (snapshot.getGtidSet() != null) {
+            writer.write("-- GTID set: " + snapshot.getGtidSet() + "\n");
+        }
+        writer.write("\n");
+    }
+
+    private OutputStream openOutput(String filePath) throws IOException {
+        OutputStream outputStream = this.partListener != null
+                ? new SplitFileOutputStream(filePath, this.partListener)
+                : new FileOutputStream(filePath, false);
+
+        if (!(this.codec instanceof NoneCodec)) {
+            outputStream = new ParallelCompressorOutputStream(
+                    outputStream, this.codec, this.blockSize, Runtime.getRuntime().availableProcessors()
+            );
+        }
+
+        return new BufferedOutputStream(outputStream, 1 << 16);
+    }
+
     private List<String> getTables() throws SQLException {
         final List<String> tables = new ArrayList<>();
 
@@ -131,24 +416,160 @@ public class MySQLBackupRestore {
         return tables;
     }
 
-    private TableBackupResult processTable(String table) {
-        final StringBuilder content = new StringBuilder();
+    private Map<String, List<TableChunk>> planChunks(List<String> tables) throws SQLException {
+        final Map<String, List<TableChunk>> tableChunks = new HashMap<>();
+        if (this.chunkRows <= 0) return tableChunks;
 
-        try (final Connection conn = this.dataSource.getConnection()) {
-            this.generateTableStructure(conn, table, content);
+        try (final Connection conn = this.dataSource.getConnection();
+             final Statement stmt = conn.createStatement();
+             final ResultSet rsRows = stmt.executeQuery(
+                     "SELECT TABLE_NAME, TABLE_ROWS FROM information_schema.TABLES " +
+                     "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_TYPE = 'BASE TABLE'"
+             )) {
+            final Map<String, Long> estimatedRows = new HashMap<>();
+            while (rsRows.next()) {
+                estimatedRows.put(rsRows.getString(1), rsRows.getLong(2));
+            }
+
+            for (String table : tables) {
+                final long rows = estimatedRows.getOrDefault(table, 0L);
+                if (rows <= this.chunkRows) continue;
 
-            this.generateTableData(conn, table, content);
+                final String keyColumn = this.findChunkKey(conn, table);
+                if (keyColumn == null) continue;
 
-        } catch (SQLException e) {
-            content.append("-- ❌ Error processing table `").append(table).append("`: ")
-                    .append(e.getMessage()).append("\n\n");
-            System.err.println("❌ Error processing table " + table + ": " + e.getMessage());
+                final List<TableChunk> chunks = this.splitKeyRange(conn, table, keyColumn, rows);
+                if (chunks.size() > 1) tableChunks.put(table, chunks);
+            }
         }
 
-        return new TableBackupResult(table, content.toString());
+        return tableChunks;
+    }
+
+    private String findChunkKey(Connection conn, String table) throws SQLException {
+        // Single column primary key first, then any single column unique key, as long as it is a signed integer.
+        try (final PreparedStatement stmt = conn.prepareStatement(
+                "SELECT s.INDEX_NAME, s.COLUMN_NAME FROM information_schema.STATISTICS s " +
+                "JOIN information_schema.COLUMNS c ON c.TABLE_SCHEMA = s.TABLE_SCHEMA " +
+                "AND c.TABLE_NAME = s.TABLE_NAME AND c.COLUMN_NAME = s.COLUMN_NAME " +
+                "WHERE s.TABLE_SCHEMA = DATABASE() AND s.TABLE_NAME = ? AND s.NON_UNIQUE = 0 " +
+                "AND c.IS_NULLABLE = 'NO' AND c.DATA_TYPE IN ('tinyint', 'smallint', 'mediumint', 'int', 'bigint') " +
+                "AND c.COLUMN_TYPE NOT LIKE 'bigint%unsigned%' " +
+                "AND (SELECT COUNT(*) FROM information_schema.STATISTICS k WHERE k.TABLE_SCHEMA = s.TABLE_SCHEMA " +
+                "AND k.TABLE_NAME = s.TABLE_NAME AND k.INDEX_NAME = s.INDEX_NAME) = 1 " +
+                "ORDER BY s.INDEX_NAME = 'PRIMARY' DESC, s.INDEX_NAME"
+        )) {
+            stmt.setString(1, table);
+
+            try (final ResultSet rsKeys = stmt.executeQuery()) {
+                return rsKeys.next() ? rsKeys.getString(2) : null;
+            }
+        }
     }
 
-    private void generateTableStructure(Connection conn, String table, StringBuilder content) throws SQLException {
+    private List<TableChunk> splitKeyRange(Connection conn, String table, String keyColumn, long rows)
+            throws SQLException {
+        try (final Statement stmt = conn.createStatement();
+             final ResultSet rsRange = stmt.executeQuery(
+                     "SELECT MIN(`" + keyColumn + "`), MAX(`" + keyColumn + "`) FROM `" + table + "`"
+             )) {
+            if (!rsRange.next() || rsRange.getObject(1) == null) return List.of();
+
+            final long min = rsRange.getLong(1);
+            final long max = rsRange.getLong(2);
+            final long chunkCount = Math.min(MAX_CHUNKS, (rows + this.chunkRows - 1) / this.chunkRows);
+            final BigInteger span = BigInteger.valueOf(max).subtract(BigInteger.valueOf(min));
+            if (chunkCount <= 1 || span.signum() <= 0) return List.of();
+
+            final List<TableChunk> chunks = new ArrayList<>();
+            Long lower = null;
+            for (long i = 1; i < chunkCount; i++) {
+                final long bound = span.multiply(BigInteger.valueOf(i))
+                        .divide(BigInteger.valueOf(chunkCount))
+                        .add(BigInteger.valueOf(min))
+                        .longValueExact();
+                if (lower != null && bound <= lower) continue;
+
+                chunks.add(new TableChunk(keyColumn, lower, bound));
+                lower = bound;
+            }
+            // The outer chunks are left open so rows written after planning are still inside the snapshot dump.
+            chunks.add(new TableChunk(keyColumn, lower, null));
+
+            return chunks;
+        }
+    }
+
+    private Path processChunk(
+            MySQLSnapshot snapshot,
+            String table,
+            TableChunk chunk,
+            boolean first,
+            boolean last,
+            Path spillDirectory
+    ) throws IOException, SQLException, InterruptedException {
+        final Connection conn = snapshot.acquire();
+        Path spillFile = null;
+
+        try {
+            // Rows go to a spill file as they are fetched, so a worker only ever holds one write buffer in memory.
+            spillFile = Files.createTempFile(spillDirectory, ".mysql-backup-", ".sql.part");
+            try (final Writer content = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8)) {
+                if (first) this.generateTableStructure(conn, table, content);
+
+                this.generateTableData(conn, table, chunk, first, content);
+
+                if (last) content.append("\n");
+            }
+            return spillFile;
+        } catch (IOException | SQLException | RuntimeException e) {
+            if (spillFile != null) Files.deleteIfExists(spillFile);
+            throw e;
+        } finally {
+            snapshot.release(conn);
+        }
+    }
+
+    private Path processTsvChunk(MySQLSnapshot snapshot, String table, TableChunk chunk, Path dataFile)
+            throws IOException, SQLException, InterruptedException {
+        final Connection conn = snapshot.acquire();
+
+        try (final Writer content = new BufferedWriter(new OutputStreamWriter(
+                this.codec.newOutputStream(new FileOutputStream(dataFile.toFile())), StandardCharsets.UTF_8
+        ), 1 << 16);
+             final Statement stmt = this.createStreamingStatement(conn);
+             final ResultSet rsData = stmt.executeQuery("SELECT * FROM `" + table + "`" + chunk.toSQL())) {
+
+            final ResultSetMetaData meta = rsData.getMetaData();
+            final MySQLValueEncoder encoder = new MySQLValueEncoder(meta);
+            final StringBuilder out = new StringBuilder(WRITE_BUFFER_SIZE * 2);
+            final char[] writeBuffer = new char[WRITE_BUFFER_SIZE * 2];
+
+            // The first line names the columns, hex encoded ones are marked so restore can UNHEX them.
+            encoder.appendTsvHeader(meta, out);
+            while (rsData.next()) {
+                encoder.appendTsvRow(rsData, out);
+
+                if (out.length() >= WRITE_BUFFER_SIZE) {
+                    this.drain(out, writeBuffer, content);
+                }
+            }
+            this.drain(out, writeBuffer, content);
+        } finally {
+            snapshot.release(conn);
+        }
+
+        return dataFile;
+    }
+
+    private int parallelism() {
+        return this.executor instanceof ThreadPoolExecutor pool
+                ? pool.getCorePoolSize()
+                : Runtime.getRuntime().availableProcessors();
+    }
+
+    private void generateTableStructure(Connection conn, String table, Writer content)
+            throws SQLException, IOException {
         try (final Statement stmt = conn.createStatement();
              final ResultSet rsCreate = stmt.executeQuery("SHOW CREATE TABLE `" + table + "`")) {
 
@@ -163,61 +584,374 @@ public class MySQLBackupRestore {
         }
     }
 
-    private void generateTableData(Connection conn, String table, StringBuilder content) throws SQLException {
-        try (final Statement stmt = conn.createStatement();
-             final ResultSet rsData = stmt.executeQuery("SELECT * FROM `" + table + "`")) {
+    private long generateTableData(Connection conn, String table, TableChunk chunk, boolean header, Writer content)
+            throws SQLException, IOException {
+        try (final Statement stmt = this.createStreamingStatement(conn);
+             final ResultSet rsData = stmt.executeQuery("SELECT * FROM `" + table + "`" + chunk.toSQL())) {
 
-            final ResultSetMetaData meta = rsData.getMetaData();
-            final int columnCount = meta.getColumnCount();
+            final MySQLValueEncoder encoder = new MySQLValueEncoder(rsData.getMetaData());
+            final StringBuilder out = new StringBuilder(WRITE_BUFFER_SIZE * 2);
+            final char[] writeBuffer = new char[WRITE_BUFFER_SIZE * 2];
+            long totalRows = 0;
             int rowCount = 0;
 
-            content.append("-- ----------------------------\n");
-            content.append("-- Data for table `").append(table).append("`\n");
-            content.append("-- ----------------------------\n");
-
-            if (rsData.next()) {
-                content.append("INSERT INTO `").append(table).append("` VALUES \n");
-
-                do {
-                    if (rowCount > 0) content.append(",\n");
-
-                    content.append("(");
-                    for (int i = 1; i <= columnCount; i++) {
-                        final Object value = rsData.getObject(i);
-
-                        if (value == null) {
-                            content.append("NULL");
-                        } else if (value instanceof String || value instanceof java.util.Date) {
-                            String stringValue = value.toString()
-                                    .replace("\\", "\\\\")
-                                    .replace("'", "\\'")
-                                    .replace("\n", "\\n")
-                                    .replace("\r", "\\r")
-                                    .replace("\t", "\\t");
-                            content.append("'").append(stringValue).append("'");
-                        } else {
-                            content.append(value);
-                        }
-
-                        if (i < columnCount) content.append(", ");
-                    }
-                    content.append(")");
-                    rowCount++;
+            if (header) {
+                out.append("-- ----------------------------\n");
+                out.append("-- Data for table `").append(table).append("`\n");
+                out.append("-- ----------------------------\n");
+            }
+
+            while (rsData.next()) {
+                if (rowCount == 0) {
+                    if (totalRows > 0) out.append("\n");
+                    out.append("INSERT INTO `").append(table).append("` VALUES \n");
+                } else {
+                    out.append(",\n");
+                }
+
+                encoder.appendRow(rsData, out);
+                totalRows++;
+
+                // Statements are closed as soon as they are full, so the cursor never has to look ahead or back.
+                if (++rowCount == ROWS_PER_INSERT) {
+                    out.append(";\n");
+                    rowCount = 0;
+                }
+
+                if (out.length() >= WRITE_BUFFER_SIZE) {
+                    this.drain(out, writeBuffer, content);
+                }
+            }
+
+            if (rowCount > 0) {
+                out.append(";\n");
+            } else if (totalRows == 0 && chunk == TableChunk.FULL) {
+                out.append("-- No data found in table `").append(table).append("`\n");
+            }
+
+            this.drain(out, writeBuffer, content);
+            return totalRows;
+        }
+    }
+
+    private void drain(StringBuilder out, char[] writeBuffer, Writer content) throws IOException {
+        // Copies through one reusable array instead of materialising a String per row.
+        for (int offset = 0; offset < out.length(); offset += writeBuffer.length) {
+            final int length = Math.min(writeBuffer.length, out.length() - offset);
+            out.getChars(offset, offset + length, writeBuffer, 0);
+            content.write(writeBuffer, 0, length);
+        }
+        out.setLength(0);
+    }
+
+    public void benchmarkEncoder(String table) throws SQLException, IOException {
+        try (final Connection conn = this.dataSource.getConnection()) {
+            final long start = System.nanoTime();
+            final long rows = this.generateTableData(conn, table, TableChunk.FULL, false, Writer.nullWriter());
+            final double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("📊 %s: %d rows encoded in %.2f seconds (%.0f rows/sec)\n",
+                    table, rows, seconds, rows / Math.max(seconds, 1e-9));
+        }
+    }
+
+    private Statement createStreamingStatement(Connection conn) throws SQLException {
+        final Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
 
-                    if (rowCount % 1000 == 0 && rsData.next()) {
-                        content.append(";\n\nINSERT INTO `").append(table).append("` VALUES \n");
-                        rsData.previous();
-                        rowCount = 0;
+        // A positive fetch size uses a server-side cursor (useCursorFetch), otherwise rows are streamed one by one.
+        stmt.setFetchSize(this.fetchSize > 0 ? this.fetchSize : Integer.MIN_VALUE);
+        return stmt;
+    }
+
+    public void restore(String filePath) throws Exception {
+        System.out.println("\n🔄 Start Restore from: " + filePath);
+        final long startTime = System.currentTimeMillis();
+
+        final File backupFile = new File(filePath);
+        if (!backupFile.exists()) {
+            throw new FileNotFoundException("Backup file not found: " + filePath);
+        }
+
+        // A directory is a TSV backup: schema.sql holds the DDL and every data file is loaded with LOAD DATA.
+        final boolean tsv = backupFile.isDirectory();
+        final String statementsPath = tsv ? new File(backupFile, TSV_SCHEMA).getPath() : filePath;
+        final Map<String, TableRestore> tableRestores = new LinkedHashMap<>();
+        final Semaphore inFlight = new Semaphore(this.parallelism() * 2);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        try (final SqlStatementReader reader = new SqlStatementReader(this.openInput(statementsPath));
+             final Connection conn = this.dataSource.getConnection();
+             final Statement stmt = conn.createStatement()) {
+            this.prepareRestoreSession(stmt);
+
+            String sql;
+            while ((sql = reader.next()) != null) {
+                final Matcher insertMatcher = INSERT_PATTERN.matcher(sql);
+                final Matcher createMatcher = CREATE_TABLE_PATTERN.matcher(sql);
+
+                if (insertMatcher.lookingAt()) {
+                    final TableRestore tableRestore = tableRestores.computeIfAbsent(
+                            insertMatcher.group(1), TableRestore::new
+                    );
+                    tableRestore.pendingStatements.add(sql);
+                    tableRestore.pendingBytes += sql.length();
+
+                    if (tableRestore.pendingBytes >= RESTORE_BATCH_BYTES) {
+                        this.submitInserts(tableRestore, inFlight, failure);
                     }
+                } else if (createMatcher.lookingAt()) {
+                    final TableRestore tableRestore = tableRestores.computeIfAbsent(
+                            createMatcher.group(1), TableRestore::new
+                    );
+                    System.out.println("⚙️ Create table: " + tableRestore.tableName);
+                    stmt.execute(this.deferSecondaryKeys(sql, tableRestore));
+                } else if (!SESSION_PATTERN.matcher(sql).lookingAt()) {
+                    // The dump's own SET/transaction statements are replaced by the per-connection restore session.
+                    stmt.execute(sql);
+                }
+            }
+
+            for (TableRestore tableRestore : tableRestores.values()) {
+                this.submitInserts(tableRestore, inFlight, failure);
+            }
+
+            inFlight.acquire(this.parallelism() * 2);
+            inFlight.release(this.parallelism() * 2);
+        }
+
+        if (tsv) this.loadTsvFiles(backupFile.toPath(), tableRestores, failure);
+
+        for (TableRestore tableRestore : tableRestores.values()) {
+            final long rows = tableRestore.rows.sum();
+            final double seconds = Math.max(1, tableRestore.lastNanos.get() - tableRestore.firstNanos.get()) / 1e9;
+            System.out.printf("📊 %s: %d rows in %.2f seconds (%.0f rows/sec)\n",
+                    tableRestore.tableName, rows, rows == 0 ? 0 : seconds, rows == 0 ? 0 : rows / seconds);
+        }
+
+        this.runDeferred(tableRestores.values(), TableRestore::deferredKeys, "🔧 Building indexes on ", failure);
+        this.runDeferred(
+                tableRestores.values(), TableRestore::deferredForeignKeys, "🔗 Adding foreign keys on ", failure
+        );
+
+        // Failed batches, data files and ALTERs are only reported by their threads, so the restore has to fail too.
+        if (failure.get() != null) {
+            throw new SQLException("Restore incomplete, first error: " + failure.get().getMessage(), failure.get());
+        }
+
+        System.out.println("✨ Restore completed.!");
+        System.out.printf("- Tables: %d\n", tableRestores.size());
+        System.out.printf("- Rows: %d\n", tableRestores.values().stream().mapToLong(t -> t.rows.sum()).sum());
+        System.out.printf("- Time: %.2f seconds\n", (System.currentTimeMillis() - startTime) / 1000.0);
+    }
+
+    private Reader openInput(String filePath) throws IOException {
+        return new InputStreamReader(this.openDecompressed(filePath), StandardCharsets.UTF_8);
+    }
+
+    private InputStream openDecompressed(String filePath) throws IOException {
+        final InputStream inputStream = new BufferedInputStream(new FileInputStream(filePath), 1 << 16);
+        final Codec fileCodec = CodecUtil.detect(inputStream);
+
+        return new BufferedInputStream(fileCodec.newInputStream(inputStream), 1 << 16);
+    }
+
+    private void loadTsvFiles(
+            Path directory,
+            Map<String, TableRestore> tableRestores,
+            AtomicReference<Exception> failure
+    ) throws IOException, InterruptedException {
+        final List<Path> dataFiles;
+        try (final Stream<Path> files = Files.list(directory)) {
+            dataFiles = files.filter(file -> TSV_FILE_PATTERN.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+
+        final CountDownLatch latch = new CountDownLatch(dataFiles.size());
+
+        for (Path dataFile : dataFiles) {
+            final Matcher matcher = TSV_FILE_PATTERN.matcher(dataFile.getFileName().toString());
+            if (!matcher.matches()) continue;
+            final TableRestore tableRestore = tableRestores.computeIfAbsent(matcher.group(1), TableRestore::new);
 
-                } while (rsData.next());
+            this.executor.submit(() -> {
+                try {
+                    this.loadTsvFile(dataFile, tableRestore);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                    System.err.println("❌ Error loading " + dataFile.getFileName() + ": " + e.getMessage());
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        if (!latch.await(1, TimeUnit.DAYS)) {
+            throw new RuntimeException("Timeout in restore!");
+        }
+    }
+
+    private void loadTsvFile(Path dataFile, TableRestore tableRestore) throws IOException, SQLException {
+        // LOCAL INFILE lets the server ask for client files, so only these short-lived restore connections allow it.
+        try (final InputStream inputStream = this.openDecompressed(dataFile.toString());
+             final Connection conn = DriverManager.getConnection(
+                     this.jdbcUrl + "&allowLoadLocalInfile=true", this.username, this.password
+             );
+             final Statement stmt = conn.createStatement()) {
+            this.prepareRestoreSession(stmt);
+
+            final ByteArrayOutputStream headerLine = new ByteArrayOutputStream();
+            int current;
+            while ((current = inputStream.read()) >= 0 && current != '\n') {
+                headerLine.write(current);
+            }
+
+            final List<String> columns = new ArrayList<>();
+            final List<String> assignments = new ArrayList<>();
+            for (String column : headerLine.toString(StandardCharsets.UTF_8).split("\t")) {
+                if (column.startsWith(MySQLValueEncoder.HEX_COLUMN_MARKER)) {
+                    final String name = column.substring(MySQLValueEncoder.HEX_COLUMN_MARKER.length());
+                    final String variable = "@v" + columns.size();
+                    columns.add(variable);
+                    assignments.add("`" + name + "` = UNHEX(" + variable + ")");
+                } else {
+                    columns.add("`" + column + "`");
+                }
+            }
+
+            // The rest of the (decompressed) stream is handed straight to the driver as the LOCAL INFILE content.
+            stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(inputStream);
+
+            tableRestore.firstNanos.compareAndSet(0, System.nanoTime());
+            final long rows = stmt.executeLargeUpdate(
+                    "LOAD DATA LOCAL INFILE 'stream' INTO TABLE `" + tableRestore.tableName + "` " +
+                    "CHARACTER SET utf8mb4 (" + String.join(", ", columns) + ")" +
+                    (assignments.isEmpty() ? "" : " SET " + String.join(", ", assignments))
+            );
+            tableRestore.rows.add(rows);
+            tableRestore.lastNanos.accumulateAndGet(System.nanoTime(), Math::max);
+        }
+    }
+
+    private void prepareRestoreSession(Statement stmt) throws SQLException {
+        stmt.execute("SET SESSION unique_checks = 0, foreign_key_checks = 0, sql_mode = 'NO_AUTO_VALUE_ON_ZERO'");
+    }
+
+    private void submitInserts(TableRestore tableRestore, Semaphore inFlight, AtomicReference<Exception> failure)
+            throws InterruptedException {
+        if (tableRestore.pendingStatements.isEmpty()) return;
+
+        final List<String> statements = tableRestore.pendingStatements;
+        tableRestore.pendingStatements = new ArrayList<>();
+        tableRestore.pendingBytes = 0;
+
+        inFlight.acquire();
+        this.executor.submit(() -> {
+            try (final Connection conn = this.dataSource.getConnection();
+                 final Statement stmt = conn.createStatement()) {
+                this.prepareRestoreSession(stmt);
+                conn.setAutoCommit(false);
+
+                // rewriteBatchedStatements sends the whole batch in one round trip.
+                for (String statement : statements) {
+                    stmt.addBatch(statement);
+                }
+
+                tableRestore.firstNanos.compareAndSet(0, System.nanoTime());
+                long rows = 0;
+                for (int count : stmt.executeBatch()) {
+                    if (count > 0) rows += count;
+                }
+                conn.commit();
+
+                tableRestore.rows.add(rows);
+                tableRestore.lastNanos.accumulateAndGet(System.nanoTime(), Math::max);
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+                System.err.println("❌ Error in restore " + tableRestore.tableName + ": " + e.getMessage());
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private String deferSecondaryKeys(String createSQL, TableRestore tableRestore) {
+        final String[] lines = createSQL.split("\n");
+        if (lines.length < 3 || !lines[0].trim().endsWith("(")) return createSQL;
+
+        final List<String> definitions = new ArrayList<>();
+        String autoIncrementColumn = null;
+        int closingLine = lines.length - 1;
+        for (int i = 1; i < lines.length; i++) {
+            final String line = lines[i].trim();
+            if (line.startsWith(")")) {
+                closingLine = i;
+                break;
+            }
+
+            final String definition = line.endsWith(",") ? line.substring(0, line.length() - 1) : line;
+            final Matcher columnName = QUOTED_NAME_PATTERN.matcher(definition);
+            if (columnName.lookingAt() && definition.toUpperCase().contains(" AUTO_INCREMENT")) {
+                autoIncrementColumn = columnName.group(1);
+            }
 
-                content.append(";\n");
+            if (SECONDARY_KEY_PATTERN.matcher(definition).lookingAt()
+                && !this.leadsWith(definition, autoIncrementColumn)) {
+                tableRestore.deferredKeys.add("ADD " + definition);
+            } else if (definition.startsWith("CONSTRAINT ") && definition.contains(" FOREIGN KEY ")) {
+                tableRestore.deferredForeignKeys.add("ADD " + definition);
             } else {
-                content.append("-- No data found in table `").append(table).append("`\n");
+                definitions.add(definition);
             }
+        }
 
-            content.append("\n");
+        final StringBuilder stripped = new StringBuilder(lines[0]).append("\n  ")
+                .append(String.join(",\n  ", definitions));
+        for (int i = closingLine; i < lines.length; i++) {
+            stripped.append("\n").append(lines[i]);
+        }
+        return stripped.toString();
+    }
+
+    private boolean leadsWith(String keyDefinition, String column) {
+        // Without a primary key the AUTO_INCREMENT column's index has to exist in the CREATE TABLE itself.
+        if (column == null) return false;
+
+        final int columns = keyDefinition.indexOf('(');
+        final Matcher matcher = QUOTED_NAME_PATTERN.matcher(keyDefinition);
+        return columns >= 0 && matcher.find(columns) && matcher.group(1).equals(column);
+    }
+
+    private void runDeferred(
+            Collection<TableRestore> tableRestores,
+            Function<TableRestore, List<String>> alterations,
+            String message,
+            AtomicReference<Exception> failure
+    ) throws InterruptedException {
+        final List<TableRestore> pending = tableRestores.stream()
+                .filter(tableRestore -> !alterations.apply(tableRestore).isEmpty())
+                .toList();
+        final CountDownLatch latch = new CountDownLatch(pending.size());
+
+        for (TableRestore tableRestore : pending) {
+            this.executor.submit(() -> {
+                try (final Connection conn = this.dataSource.getConnection();
+                     final Statement stmt = conn.createStatement()) {
+                    this.prepareRestoreSession(stmt);
+                    System.out.println(message + tableRestore.tableName);
+                    stmt.execute("ALTER TABLE `" + tableRestore.tableName + "` "
+                                 + String.join(", ", alterations.apply(tableRestore)));
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                    System.err.println("❌ Error altering table " + tableRestore.tableName + ": " + e.getMessage());
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        if (!latch.await(1, TimeUnit.DAYS)) {
+            throw new RuntimeException("Timeout in restore!");
         }
     }
 
@@ -238,7 +972,45 @@ public class MySQLBackupRestore {
         }
     }
 
-    private record TableBackupResult(String tableName, String content) {
+    private record TableDump(String tableName, List<Future<Path>> parts) {
+    }
+
+    private static class TableRestore {
+        private final String tableName;
+        private final List<String> deferredKeys = new ArrayList<>();
+        private final List<String> deferredForeignKeys = new ArrayList<>();
+        private final LongAdder rows = new LongAdder();
+        private final AtomicLong firstNanos = new AtomicLong();
+        private final AtomicLong lastNanos = new AtomicLong();
+        private List<String> pendingStatements = new ArrayList<>();
+        private long pendingBytes;
+
+        private TableRestore(String tableName) {
+            this.tableName = tableName;
+        }
+
+        private List<String> deferredKeys() {
+            return this.deferredKeys;
+        }
+
+        private List<String> deferredForeignKeys() {
+            return this.deferredForeignKeys;
+        }
+    }
+
+    private record TableChunk(String keyColumn, Long lower, Long upper) {
+        private static final TableChunk FULL = new TableChunk(null, null, null);
+
+        private String toSQL() {
+            if (this.keyColumn == null) return "";
+
+            final String column = "`" + this.keyColumn + "`";
+            final List<String> conditions = new ArrayList<>();
+            if (this.lower != null) conditions.add(column + " >= " + this.lower);
+            if (this.upper != null) conditions.add(column + " < " + this.upper);
+
+            return (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions)) + " ORDER BY " + column;
+        }
     }
 
     public void testConnection() throws SQLException {
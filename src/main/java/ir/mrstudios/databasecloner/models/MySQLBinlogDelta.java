@@ -0,0 +1,625 @@
+package ir.mrstudios.databasecloner.models;
+
+import com.github.shyiko.mysql.binlog.BinaryLogClient;
+import com.github.shyiko.mysql.binlog.event.*;
+import com.github.shyiko.mysql.binlog.event.deserialization.ColumnType;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer;
+import com.github.shyiko.mysql.binlog.event.deserialization.json.JsonBinary;
+import ir.mrstudios.databasecloner.codecs.Codec;
+import ir.mrstudios.databasecloner.utils.CodecUtil;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class MySQLBinlogDelta {
+
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final String database;
+    private final DataSource dataSource;
+    private final Codec codec;
+
+    private final Map<Long, TableMapEventData> tableMaps = new HashMap<>();
+    private final Map<String, TableColumns> tableColumns = new HashMap<>();
+    private final List<String> transaction = new ArrayList<>();
+    private DataOutputStream eventStream;
+    private String currentFile;
+    private boolean inTransaction;
+    private long transactions;
+    private long rows;
+
+    private static final String DELTA_HEADER = "MR_MYSQL_DELTA_V1";
+    private static final long CONNECT_TIMEOUT_MILLIS = 30_000;
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern(
+            "yyyy-MM-dd HH:mm:ss.SSSSSS"
+    );
+
+    public MySQLBinlogDelta(
+            String host,
+            int port,
+            String username,
+            String password,
+            String database,
+            DataSource dataSource,
+            Codec codec
+    ) {
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.database = database;
+        this.dataSource = dataSource;
+        this.codec = codec;
+    }
+
+    public MySQLSnapshot.BinlogPosition capture(String deltaPath, String startFile, long startPosition)
+            throws Exception {
+        final MySQLSnapshot.BinlogPosition target;
+        try (final Connection conn = this.dataSource.getConnection();
+             final Statement stmt = conn.createStatement()) {
+            target = MySQLSnapshot.currentBinlogPosition(stmt);
+            refuseCompressedBinlogs(stmt);
+        }
+        if (target == null) {
+            throw new SQLException("Couldn't read binlog position, incremental backups need binary logging.");
+        }
+
+        System.out.println("\n🔄 Start Incremental Backup: " + this.database
+                           + " from " + startFile + ":" + startPosition);
+        System.out.println("⚠️ Binlog deltas are experimental, keep full backups often enough to fall back on.");
+        final long startTime = System.currentTimeMillis();
+
+        try (DataOutputStream outputStream = this.openDelta(deltaPath, startFile, startPosition, target)) {
+            // The target is read before connecting, so the stream has a fixed end even while writes go on.
+            if (!reached(startFile, startPosition, target)) {
+                this.stream(startFile, startPosition, target);
+            }
+
+            this.closeDelta();
+        }
+
+        System.out.printf("✨ Incremental backup complete: %d transactions, %d rows in %.2f seconds\n",
+                this.transactions, this.rows, (System.currentTimeMillis() - startTime) / 1000.0);
+        return target;
+    }
+
+    DataOutputStream openDelta(
+            String deltaPath,
+            String startFile,
+            long startPosition,
+            MySQLSnapshot.BinlogPosition target
+    ) throws IOException {
+        final DataOutputStream outputStream = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(deltaPath), 1 << 16)
+        );
+        outputStream.writeUTF(DELTA_HEADER);
+        outputStream.writeUTF(this.database);
+        outputStream.writeUTF(startFile);
+        outputStream.writeLong(startPosition);
+        outputStream.writeUTF(target.file());
+        outputStream.writeLong(target.position());
+        outputStream.writeUTF(this.codec.getName());
+        outputStream.flush();
+
+        this.eventStream = new DataOutputStream(this.codec.newOutputStream(outputStream));
+        this.currentFile = startFile;
+        return outputStream;
+    }
+
+    void closeDelta() throws IOException {
+        this.eventStream.writeInt(0);
+        this.eventStream.close();
+    }
+
+    private static void refuseCompressedBinlogs(Statement stmt) throws SQLException {
+        // Compressed transactions arrive as one TRANSACTION_PAYLOAD event whose rows this reader can't decode.
+        try (final ResultSet rs = stmt.executeQuery(
+                "SHOW GLOBAL VARIABLES LIKE 'binlog_transaction_compression'"
+        )) {
+            if (rs.next() && "ON".equalsIgnoreCase(rs.getString(2))) {
+                throw new SQLException("binlog_transaction_compression is ON, binlog deltas can't read compressed "
+                                       + "transactions.");
+            }
+        }
+    }
+
+    private void stream(String startFile, long startPosition, MySQLSnapshot.BinlogPosition target)
+            throws Exception {
+        final BinaryLogClient client = new BinaryLogClient(this.host, this.port, this.username, this.password);
+        // Every replica needs its own server id, a random one keeps parallel captures from kicking each other off.
+        client.setServerId(ThreadLocalRandom.current().nextLong(100_000, 4_000_000_000L));
+        client.setBinlogFilename(startFile);
+        client.setBinlogPosition(startPosition);
+        client.setKeepAlive(false);
+
+        final EventDeserializer deserializer = new EventDeserializer();
+        deserializer.setCompatibilityMode(
+                EventDeserializer.CompatibilityMode.DATE_AND_TIME_AS_LONG_MICRO,
+                EventDeserializer.CompatibilityMode.CHAR_AND_BINARY_AS_BYTE_ARRAY,
+                EventDeserializer.CompatibilityMode.INVALID_DATE_AND_TIME_AS_MIN_VALUE
+        );
+        client.setEventDeserializer(deserializer);
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicBoolean complete = new AtomicBoolean(false);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        client.registerEventListener(event -> {
+            if (done.getCount() == 0) return;
+
+            try {
+                final EventHeaderV4 header = event.getHeader();
+                final String file = this.currentFile;
+                this.onEvent(event);
+
+                if (header.getNextPosition() > 0 && reached(file, header.getNextPosition(), target)) {
+                    complete.set(true);
+                    done.countDown();
+                }
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+                done.countDown();
+            }
+        });
+        client.registerLifecycleListener(new BinaryLogClient.AbstractLifecycleListener() {
+            @Override
+            public void onCommunicationFailure(BinaryLogClient client, Exception ex) {
+                failure.compareAndSet(null, ex);
+                done.countDown();
+            }
+
+            @Override
+            public void onEventDeserializationFailure(BinaryLogClient client, Exception ex) {
+                failure.compareAndSet(null, ex);
+                done.countDown();
+            }
+
+            @Override
+            public void onDisconnect(BinaryLogClient client) {
+                done.countDown();
+            }
+        });
+
+        client.connect(CONNECT_TIMEOUT_MILLIS);
+        try {
+            done.await();
+        } finally {
+            client.disconnect();
+        }
+
+        if (failure.get() != null) throw failure.get();
+        if (!complete.get()) {
+            throw new IOException("Binlog stream ended before " + target.file() + ":" + target.position());
+        }
+    }
+
+    void onEvent(Event event) throws IOException, SQLException {
+        final EventHeaderV4 header = event.getHeader();
+
+        switch (header.getEventType()) {
+            case ROTATE -> this.currentFile = event.<RotateEventData>getData().getBinlogFilename();
+            case TABLE_MAP -> {
+                final TableMapEventData data = event.getData();
+                this.tableMaps.put(data.getTableId(), data);
+            }
+            case WRITE_ROWS, EXT_WRITE_ROWS -> this.appendWrite(event.getData());
+            case UPDATE_ROWS, EXT_UPDATE_ROWS -> this.appendUpdate(event.getData());
+            case DELETE_ROWS, EXT_DELETE_ROWS -> this.appendDelete(event.getData());
+            case XID -> this.commit(header.getTimestamp());
+            case QUERY -> this.onQuery(event.getData(), header.getTimestamp());
+            // Sessions can turn compression on even when the global setting is off.
+            case TRANSACTION_PAYLOAD -> throw new IOException("Compressed binlog transaction at " + this.currentFile
+                                                              + ":" + header.getPosition() + ", can't read it.");
+            default -> {
+            }
+        }
+    }
+
+    private void onQuery(QueryEventData data, long timestamp) throws IOException {
+        final String sql = data.getSql().trim();
+
+        if (sql.equalsIgnoreCase("BEGIN")) {
+            this.inTransaction = true;
+            return;
+        }
+        if (sql.equalsIgnoreCase("COMMIT")) {
+            this.commit(timestamp);
+            return;
+        }
+        if (!this.database.equals(data.getDatabase())) return;
+
+        this.transaction.add(sql);
+        if (!this.inTransaction) {
+            // DDL commits implicitly and may change columns, so it is its own transaction.
+            this.tableColumns.clear();
+            this.commit(timestamp);
+        }
+    }
+
+    private void appendWrite(WriteRowsEventData data) throws SQLException {
+        final TableMapEventData table = this.tableOf(data.getTableId());
+        if (table == null) return;
+
+        final TableColumns columns = this.columnsOf(table);
+        final int[] included = data.getIncludedColumns().stream().toArray();
+
+        final StringBuilder sql = new StringBuilder("REPLACE INTO `").append(table.getTable()).append("` (");
+        boolean first = true;
+        for (int column : included) {
+            if (columns.generated()[column]) continue;
+            if (!first) sql.append(", ");
+            sql.append('`').append(columns.names().get(column)).append('`');
+            first = false;
+        }
+        sql.append(") VALUES ");
+
+        for (int i = 0; i < data.getRows().size(); i++) {
+            if (i > 0) sql.append(", ");
+            final Serializable[] row = data.getRows().get(i);
+
+            sql.append('(');
+            first = true;
+            for (int j = 0; j < included.length; j++) {
+                if (columns.generated()[included[j]]) continue;
+                if (!first) sql.append(", ");
+                this.appendLiteral(table, columns, included[j], row[j], sql);
+                first = false;
+            }
+            sql.append(')');
+        }
+
+        this.transaction.add(sql.toString());
+        this.rows += data.getRows().size();
+    }
+
+    private void appendUpdate(UpdateRowsEventData data) throws SQLException {
+        final TableMapEventData table = this.tableOf(data.getTableId());
+        if (table == null) return;
+
+        final TableColumns columns = this.columnsOf(table);
+        final int[] before = data.getIncludedColumnsBeforeUpdate().stream().toArray();
+        final int[] after = data.getIncludedColumns().stream().toArray();
+
+        for (Map.Entry<Serializable[], Serializable[]> row : data.getRows()) {
+            final StringBuilder sql = new StringBuilder("UPDATE `").append(table.getTable()).append("` SET ");
+            boolean first = true;
+            for (int j = 0; j < after.length; j++) {
+                if (columns.generated()[after[j]]) continue;
+                if (!first) sql.append(", ");
+                sql.append('`').append(columns.names().get(after[j])).append("` = ");
+                this.appendLiteral(table, columns, after[j], row.getValue()[j], sql);
+                first = false;
+            }
+            this.appendWhere(table, columns, before, row.getKey(), sql);
+
+            this.transaction.add(sql.toString());
+        }
+        this.rows += data.getRows().size();
+    }
+
+    private void appendDelete(DeleteRowsEventData data) throws SQLException {
+        final TableMapEventData table = this.tableOf(data.getTableId());
+        if (table == null) return;
+
+        final TableColumns columns = this.columnsOf(table);
+        final int[] included = data.getIncludedColumns().stream().toArray();
+
+        for (Serializable[] row : data.getRows()) {
+            final StringBuilder sql = new StringBuilder("DELETE FROM `").append(table.getTable()).append('`');
+            this.appendWhere(table, columns, included, row, sql);
+
+            this.transaction.add(sql.toString());
+        }
+        this.rows += data.getRows().size();
+    }
+
+    private void appendWhere(
+            TableMapEventData table,
+            TableColumns columns,
+            int[] included,
+            Serializable[] row,
+            StringBuilder sql
+    ) {
+        // The primary key identifies the row when it was logged, otherwise every logged column has to match.
+        final boolean hasKey = Arrays.stream(included).anyMatch(column -> columns.primary()[column]);
+
+        sql.append(" WHERE ");
+        boolean first = true;
+        for (int j = 0; j < included.length; j++) {
+            if (hasKey ? !columns.primary()[included[j]] : columns.generated()[included[j]]) continue;
+            if (!first) sql.append(" AND ");
+            sql.append('`').append(columns.names().get(included[j])).append("` <=> ");
+            this.appendLiteral(table, columns, included[j], row[j], sql);
+            first = false;
+        }
+        sql.append(" LIMIT 1");
+    }
+
+    private void appendLiteral(
+            TableMapEventData table,
+            TableColumns columns,
+            int column,
+            Serializable value,
+            StringBuilder out
+    ) {
+        appendLiteral(ColumnType.byCode(table.getColumnTypes()[column] & 0xFF), columns.unsigned()[column], value, out);
+    }
+
+    static void appendLiteral(ColumnType type, boolean unsigned, Serializable value, StringBuilder out) {
+        if (value == null) {
+            out.append("NULL");
+            return;
+        }
+
+        if (value instanceof byte[] bytes) {
+            if (type == ColumnType.JSON) {
+                try {
+                    MySQLValueEncoder.appendQuoted(JsonBinary.parseAsString(bytes), out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else {
+                MySQLValueEncoder.appendHex(bytes, true, out);
+            }
+        } else if (value instanceof BitSet bits) {
+            out.append(bits.isEmpty() ? 0 : bits.toLongArray()[0]);
+        } else if (value instanceof BigDecimal decimal) {
+            out.append(decimal.toPlainString());
+        } else if (value instanceof Long number && isTemporal(type)) {
+            appendTemporal(type, number, out);
+        } else if (value instanceof Long number && unsigned) {
+            out.append(Long.toUnsignedString(number));
+        } else if (value instanceof Integer number && unsigned) {
+            // Row events carry the raw bits, unsigned columns have to be widened by their storage size.
+            out.append(switch (type) {
+                case TINY -> number & 0xFFL;
+                case SHORT -> number & 0xFFFFL;
+                case INT24 -> number & 0xFFFFFFL;
+                default -> Integer.toUnsignedLong(number);
+            });
+        } else if (value instanceof Number number) {
+            out.append(number);
+        } else {
+            MySQLValueEncoder.appendQuoted(value.toString(), out);
+        }
+    }
+
+    private static boolean isTemporal(ColumnType type) {
+        return switch (type) {
+            case DATE, NEWDATE, TIME, TIME_V2, DATETIME, DATETIME_V2, TIMESTAMP, TIMESTAMP_V2 -> true;
+            default -> false;
+        };
+    }
+
+    static void appendTemporal(ColumnType type, long micros, StringBuilder out) {
+        final boolean time = type == ColumnType.TIME || type == ColumnType.TIME_V2;
+        final boolean date = type == ColumnType.DATE || type == ColumnType.NEWDATE;
+
+        // Zero dates are reported as Long.MIN_VALUE, they only survive replay as the zero literal.
+        if (micros == Long.MIN_VALUE) {
+            out.append(time ? "'00:00:00'" : date ? "'0000-00-00'" : "'0000-00-00 00:00:00'");
+            return;
+        }
+
+        if (time) {
+            final long absolute = Math.abs(micros);
+            out.append(String.format("'%s%02d:%02d:%02d.%06d'", micros < 0 ? "-" : "",
+                    absolute / 3_600_000_000L, absolute / 60_000_000 % 60, absolute / 1_000_000 % 60,
+                    absolute % 1_000_000));
+            return;
+        }
+
+        final LocalDateTime dateTime = LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1000, ZoneOffset.UTC
+        );
+        out.append('\'').append(date ? dateTime.toLocalDate().toString() : DATE_TIME_FORMAT.format(dateTime))
+                .append('\'');
+    }
+
+    private TableMapEventData tableOf(long tableId) {
+        final TableMapEventData table = this.tableMaps.get(tableId);
+        return table != null && this.database.equals(table.getDatabase()) ? table : null;
+    }
+
+    private TableColumns columnsOf(TableMapEventData table) throws SQLException {
+        TableColumns columns = this.tableColumns.get(table.getTable());
+        if (columns == null) {
+            columns = this.loadColumns(table.getTable());
+            this.tableColumns.put(table.getTable(), columns);
+        }
+
+        if (columns.names().size() != table.getColumnTypes().length) {
+            throw new SQLException("Columns of " + table.getTable() + " changed since its rows were logged, "
+                                   + "a new full backup is needed.");
+        }
+        // Same count isn't enough, a dropped and an added column would shift every value into the wrong column.
+        for (int i = 0; i < columns.names().size(); i++) {
+            final ColumnType type = ColumnType.byCode(table.getColumnTypes()[i] & 0xFF);
+            if (!matches(columns.dataTypes().get(i), type)) {
+                throw new SQLException("Column " + table.getTable() + "." + columns.names().get(i) + " is "
+                                       + columns.dataTypes().get(i) + " but was logged as " + type
+                                       + ", a new full backup is needed.");
+            }
+        }
+        return columns;
+    }
+
+    static boolean matches(String dataType, ColumnType type) {
+        // The table map logs the binlog type: char, binary, enum and set all come as STRING and texts as BLOB.
+        return switch (dataType) {
+            case "tinyint" -> type == ColumnType.TINY;
+            case "smallint" -> type == ColumnType.SHORT;
+            case "mediumint" -> type == ColumnType.INT24;
+            case "int", "integer" -> type == ColumnType.LONG;
+            case "bigint" -> type == ColumnType.LONGLONG;
+            case "float" -> type == ColumnType.FLOAT;
+            case "double", "real" -> type == ColumnType.DOUBLE;
+            case "decimal", "numeric" -> type == ColumnType.NEWDECIMAL || type == ColumnType.DECIMAL;
+            case "date" -> type == ColumnType.DATE || type == ColumnType.NEWDATE;
+            case "time" -> type == ColumnType.TIME || type == ColumnType.TIME_V2;
+            case "datetime" -> type == ColumnType.DATETIME || type == ColumnType.DATETIME_V2;
+            case "timestamp" -> type == ColumnType.TIMESTAMP || type == ColumnType.TIMESTAMP_V2;
+            case "year" -> type == ColumnType.YEAR;
+            case "bit" -> type == ColumnType.BIT;
+            case "json" -> type == ColumnType.JSON;
+            case "varchar", "varbinary" -> type == ColumnType.VARCHAR || type == ColumnType.VAR_STRING;
+            case "char", "binary", "enum", "set" -> type == ColumnType.STRING;
+            case "tinytext", "text", "mediumtext", "longtext", "tinyblob", "blob", "mediumblob", "longblob" ->
+                    type == ColumnType.BLOB;
+            case "geometry", "point", "linestring", "polygon", "multipoint", "multilinestring", "multipolygon",
+                 "geometrycollection", "geomcollection" -> type == ColumnType.GEOMETRY;
+            // Types newer than this list are only checked by the column count.
+            default -> true;
+        };
+    }
+
+    private TableColumns loadColumns(String table) throws SQLException {
+        final List<String> names = new ArrayList<>();
+        final List<String> dataTypes = new ArrayList<>();
+        final List<String> types = new ArrayList<>();
+        final List<String> keys = new ArrayList<>();
+        final List<String> extras = new ArrayList<>();
+
+        try (final Connection conn = this.dataSource.getConnection();
+             final PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT COLUMN_NAME, DATA_TYPE, COLUMN_TYPE, COLUMN_KEY, EXTRA FROM information_schema.COLUMNS " +
+                     "WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION"
+             )) {
+            stmt.setString(1, this.database);
+            stmt.setString(2, table);
+
+            try (final ResultSet rsColumns = stmt.executeQuery()) {
+                while (rsColumns.next()) {
+                    names.add(rsColumns.getString(1));
+                    dataTypes.add(rsColumns.getString(2).toLowerCase());
+                    types.add(rsColumns.getString(3).toLowerCase());
+                    keys.add(rsColumns.getString(4));
+                    extras.add(rsColumns.getString(5).toUpperCase());
+                }
+            }
+        }
+
+        final boolean[] unsigned = new boolean[names.size()];
+        final boolean[] primary = new boolean[names.size()];
+        final boolean[] generated = new boolean[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            unsigned[i] = types.get(i).contains("unsigned");
+            primary[i] = "PRI".equals(keys.get(i));
+            generated[i] = extras.get(i).contains("GENERATED");
+        }
+        return new TableColumns(names, dataTypes, unsigned, primary, generated);
+    }
+
+    private void commit(long timestamp) throws IOException {
+        this.inTransaction = false;
+        if (this.transaction.isEmpty()) return;
+
+        this.eventStream.writeInt(this.transaction.size());
+        this.eventStream.writeLong(timestamp);
+        for (String sql : this.transaction) {
+            final byte[] bytes = sql.getBytes(StandardCharsets.UTF_8);
+            this.eventStream.writeInt(bytes.length);
+            this.eventStream.write(bytes);
+        }
+
+        this.transaction.clear();
+        this.transactions++;
+    }
+
+    private static boolean reached(String file, long position, MySQLSnapshot.BinlogPosition target) {
+        // Binlog file names share a prefix and a zero padded sequence number, so they sort by name.
+        final int order = file.compareTo(target.file());
+        return order > 0 || (order == 0 && position >= target.position());
+    }
+
+    public static DeltaRange replay(Connection conn, String deltaPath, DeltaRange previous, long stopAtMillis)
+            throws IOException, SQLException {
+        System.out.println("🔁 Replay delta: " + deltaPath);
+        final long startTime = System.currentTimeMillis();
+        long transactions = 0;
+        long statements = 0;
+
+        try (DataInputStream headerStream = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(deltaPath), 1 << 16)
+        )) {
+            if (!DELTA_HEADER.equals(headerStream.readUTF())) {
+                throw new IOException("The delta file format is invalid!");
+            }
+            headerStream.readUTF();
+            final String startFile = headerStream.readUTF();
+            final long startPosition = headerStream.readLong();
+            final String endFile = headerStream.readUTF();
+            final long endPosition = headerStream.readLong();
+            final Codec deltaCodec = CodecUtil.byName(headerStream.readUTF());
+
+            // A gap or an overlap between deltas would lose rows or apply them twice, so nothing is applied.
+            if (previous != null
+                && !new DeltaRange(startFile, startPosition, endFile, endPosition, false).continues(previous)) {
+                throw new IOException(deltaPath + " starts at " + startFile + ":" + startPosition
+                                      + ", not where the previous delta ended (" + previous.endFile() + ":"
+                                      + previous.endPosition() + ").");
+            }
+
+            final DataInputStream eventStream = new DataInputStream(deltaCodec.newInputStream(headerStream));
+            boolean stopped = false;
+
+            try (final Statement stmt = conn.createStatement()) {
+                int count;
+                while ((count = eventStream.readInt()) > 0) {
+                    final long timestamp = eventStream.readLong();
+                    if (timestamp > stopAtMillis) {
+                        stopped = true;
+                        break;
+                    }
+
+                    for (int i = 0; i < count; i++) {
+                        final byte[] bytes = new byte[eventStream.readInt()];
+                        eventStream.readFully(bytes);
+                        stmt.addBatch(new String(bytes, StandardCharsets.UTF_8));
+                    }
+
+                    // One database transaction per logged transaction, so a stop point never splits one.
+                    stmt.executeBatch();
+                    stmt.clearBatch();
+                    conn.commit();
+                    transactions++;
+                    statements += count;
+                }
+            }
+
+            System.out.printf("✅ %d transactions (%d statements) applied in %.2f seconds\n",
+                    transactions, statements, (System.currentTimeMillis() - startTime) / 1000.0);
+            return new DeltaRange(startFile, startPosition, endFile, endPosition, stopped);
+        }
+    }
+
+    public record DeltaRange(String startFile, long startPosition, String endFile, long endPosition,
+                             boolean stopped) {
+
+        public boolean continues(DeltaRange previous) {
+            return previous.endFile().equals(this.startFile) && previous.endPosition() == this.startPosition;
+        }
+    }
+
+    private record TableColumns(
+            List<String> names,
+            List<String> dataTypes,
+            boolean[] unsigned,
+            boolean[] primary,
+            boolean[] generated
+    ) {
+    }
+}
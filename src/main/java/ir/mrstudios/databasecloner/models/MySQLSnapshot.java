@@ -0,0 +1,143 @@
+package ir.mrstudios.databasecloner.models;
+
+import lombok.Getter;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class MySQLSnapshot implements Closeable {
+
+    private final List<Connection> connections = new ArrayList<>();
+    private final BlockingQueue<Connection> idleConnections;
+
+    @Getter
+    private String lockMode = "none";
+    @Getter
+    private String binlogFile;
+    @Getter
+    private long binlogPosition;
+    @Getter
+    private String gtidSet;
+
+    public MySQLSnapshot(DataSource dataSource, List<String> tables, int size, boolean globalReadLock)
+            throws SQLException {
+        this.idleConnections = new ArrayBlockingQueue<>(size);
+
+        try (final Connection coordinator = dataSource.getConnection();
+             final Statement lockStatement = coordinator.createStatement()) {
+            // Writers are held off while every worker opens its snapshot, so all of them see the same data.
+            final boolean locked = (globalReadLock && this.flushTablesWithReadLock(lockStatement))
+                                   || this.lockTables(lockStatement, tables);
+            if (locked) this.readBinlogPosition(lockStatement);
+
+            try {
+                for (int i = 0; i < size; i++) {
+                    final Connection connection = dataSource.getConnection();
+                    this.connections.add(connection);
+
+                    try (final Statement stmt = connection.createStatement()) {
+                        stmt.execute("SET SESSION TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+                        stmt.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT");
+                    }
+                    this.idleConnections.add(connection);
+                }
+            } finally {
+                if (locked) lockStatement.execute("UNLOCK TABLES");
+            }
+        } catch (SQLException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    public Connection acquire() throws InterruptedException {
+        return this.idleConnections.take();
+    }
+
+    public void release(Connection connection) {
+        this.idleConnections.add(connection);
+    }
+
+    private boolean flushTablesWithReadLock(Statement lockStatement) {
+        try {
+            lockStatement.execute("FLUSH TABLES WITH READ LOCK");
+            this.lockMode = "FLUSH TABLES WITH READ LOCK";
+            return true;
+        } catch (SQLException e) {
+            System.err.println("⚠️ Couldn't take global read lock, falling back to LOCK TABLES: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void readBinlogPosition(Statement lockStatement) {
+        final BinlogPosition position = currentBinlogPosition(lockStatement);
+        if (position == null) {
+            System.err.println("⚠️ Couldn't read binlog position, binary logging may be disabled.");
+            return;
+        }
+
+        this.binlogFile = position.file();
+        this.binlogPosition = position.position();
+        this.gtidSet = position.gtidSet();
+    }
+
+    static BinlogPosition currentBinlogPosition(Statement stmt) {
+        // MySQL 8.2 renamed SHOW MASTER STATUS, older servers and MariaDB only know the old name.
+        for (String query : new String[]{"SHOW BINARY LOG STATUS", "SHOW MASTER STATUS"}) {
+            try (final ResultSet rsStatus = stmt.executeQuery(query)) {
+                if (!rsStatus.next()) return null;
+
+                String gtidSet = null;
+                if (rsStatus.getMetaData().getColumnCount() >= 5) {
+                    gtidSet = rsStatus.getString(5);
+                    gtidSet = gtidSet == null || gtidSet.isBlank() ? null : gtidSet.replace("\n", "");
+                }
+                return new BinlogPosition(rsStatus.getString("File"), rsStatus.getLong("Position"), gtidSet);
+            } catch (SQLException ignored) {
+            }
+        }
+        return null;
+    }
+
+    private boolean lockTables(Statement lockStatement, List<String> tables) {
+        if (tables.isEmpty()) return false;
+
+        final StringBuilder lockSQL = new StringBuilder("LOCK TABLES ");
+        for (int i = 0; i < tables.size(); i++) {
+            if (i > 0) lockSQL.append(", ");
+            lockSQL.append("`").append(tables.get(i)).append("` READ");
+        }
+
+        try {
+            lockStatement.execute(lockSQL.toString());
+            this.lockMode = "LOCK TABLES";
+            return true;
+        } catch (SQLException e) {
+            System.err.println("⚠️ Couldn't lock tables, snapshots may differ between workers: " + e.getMessage());
+            return false;
+        }
+    }
+
+    record BinlogPosition(String file, long position, String gtidSet) {
+    }
+
+    @Override
+    public void close() {
+        for (Connection connection : this.connections) {
+            try (connection; final Statement stmt = connection.createStatement()) {
+                stmt.execute("COMMIT");
+            } catch (SQLException e) {
+                System.err.println("⚠️ Couldn't close snapshot connection: " + e.getMessage());
+            }
+        }
+        this.connections.clear();
+    }
+}
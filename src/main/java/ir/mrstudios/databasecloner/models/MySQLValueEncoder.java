@@ -0,0 +1,155 @@
+package ir.mrstudios.databasecloner.models;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+public class MySQLValueEncoder {
+
+    public static final String HEX_COLUMN_MARKER = "@";
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final ValueKind[] kinds;
+
+    public MySQLValueEncoder(ResultSetMetaData meta) throws SQLException {
+        this.kinds = new ValueKind[meta.getColumnCount()];
+
+        for (int i = 0; i < this.kinds.length; i++) {
+            this.kinds[i] = kindOf(meta.getColumnType(i + 1), meta.getColumnTypeName(i + 1));
+        }
+    }
+
+    public void appendRow(ResultSet rs, StringBuilder out) throws SQLException {
+        out.append('(');
+
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (i > 0) out.append(", ");
+            this.appendValue(rs, i + 1, this.kinds[i], false, out);
+        }
+
+        out.append(')');
+    }
+
+    public void appendTsvHeader(ResultSetMetaData meta, StringBuilder out) throws SQLException {
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (i > 0) out.append('\t');
+            if (this.kinds[i] == ValueKind.BINARY) out.append(HEX_COLUMN_MARKER);
+            out.append(meta.getColumnLabel(i + 1));
+        }
+        out.append('\n');
+    }
+
+    public void appendTsvRow(ResultSet rs, StringBuilder out) throws SQLException {
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (i > 0) out.append('\t');
+            this.appendValue(rs, i + 1, this.kinds[i], true, out);
+        }
+        out.append('\n');
+    }
+
+    private void appendValue(ResultSet rs, int column, ValueKind kind, boolean tsv, StringBuilder out)
+            throws SQLException {
+        final String nullLiteral = tsv ? "\\N" : "NULL";
+
+        switch (kind) {
+            case INTEGER -> {
+                final long value = rs.getLong(column);
+                if (rs.wasNull()) out.append(nullLiteral);
+                else out.append(value);
+            }
+            case FLOAT -> {
+                final float value = rs.getFloat(column);
+                if (rs.wasNull()) out.append(nullLiteral);
+                else out.append(value);
+            }
+            case DOUBLE -> {
+                final double value = rs.getDouble(column);
+                if (rs.wasNull()) out.append(nullLiteral);
+                else out.append(value);
+            }
+            case EXACT -> {
+                final String value = rs.getString(column);
+                out.append(value == null ? nullLiteral : value);
+            }
+            case BINARY -> {
+                final byte[] value = rs.getBytes(column);
+                if (value == null) out.append(nullLiteral);
+                else appendHex(value, !tsv, out);
+            }
+            case TEXT -> {
+                final String value = rs.getString(column);
+                if (value == null) out.append(nullLiteral);
+                else if (tsv) appendTsvEscaped(value, out);
+                else appendQuoted(value, out);
+            }
+        }
+    }
+
+    private static ValueKind kindOf(int sqlType, String typeName) {
+        // The connection sets tinyInt1isBit=false, so only real BIT(n) columns get here with a BIT type name.
+        if (typeName.toUpperCase().startsWith("BIT")) return ValueKind.BINARY;
+
+        return switch (sqlType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIT, Types.BOOLEAN -> ValueKind.INTEGER;
+            case Types.BIGINT -> typeName.toUpperCase().contains("UNSIGNED") ? ValueKind.EXACT : ValueKind.INTEGER;
+            case Types.REAL -> ValueKind.FLOAT;
+            case Types.FLOAT, Types.DOUBLE -> ValueKind.DOUBLE;
+            case Types.DECIMAL, Types.NUMERIC -> ValueKind.EXACT;
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> ValueKind.BINARY;
+            default -> ValueKind.TEXT;
+        };
+    }
+
+    static void appendHex(byte[] value, boolean literal, StringBuilder out) {
+        if (literal && value.length == 0) {
+            out.append("''");
+            return;
+        }
+
+        out.ensureCapacity(out.length() + 2 + value.length * 2);
+        if (literal) out.append("0x");
+        for (byte b : value) {
+            out.append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+        }
+    }
+
+    private static void appendTsvEscaped(String value, StringBuilder out) {
+        // Matches LOAD DATA's default FIELDS ESCAPED BY '\\' handling.
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\0' -> out.append("\\0");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    static void appendQuoted(String value, StringBuilder out) {
+        out.append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\0' -> out.append("\\0");
+                case '\\' -> out.append("\\\\");
+                case '\'' -> out.append("\\'");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\u001A' -> out.append("\\Z");
+                default -> out.append(c);
+            }
+        }
+        out.append('\'');
+    }
+
+    private enum ValueKind {
+        INTEGER, FLOAT, DOUBLE, EXACT, BINARY, TEXT
+    }
+}
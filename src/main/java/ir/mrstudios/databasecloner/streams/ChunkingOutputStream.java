@@ -0,0 +1,87 @@
+package ir.mrstudios.databasecloner.streams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.SplittableRandom;
+
+public class ChunkingOutputStream extends OutputStream {
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        // Fixed seed, chunk boundaries have to be the same in every run or nothing deduplicates.
+        final SplittableRandom random = new SplittableRandom(0x4D52_4443_4C4EL);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private final ChunkSink sink;
+    private final int minSize;
+    private final int averageSize;
+    private final int maxSize;
+    private final int strictShift;
+    private final int looseShift;
+    private final byte[] chunk;
+
+    private int chunkLength;
+    private long hash;
+    private boolean closed;
+
+    public ChunkingOutputStream(ChunkSink sink, int averageSize) {
+        this.sink = sink;
+        this.averageSize = Integer.highestOneBit(Math.max(averageSize, 4096));
+        this.minSize = this.averageSize / 4;
+        this.maxSize = this.averageSize * 8;
+
+        // Normalized chunking: a harder condition before the average size and an easier one after it.
+        final int bits = Integer.numberOfTrailingZeros(this.averageSize);
+        this.strictShift = 64 - (bits + 1);
+        this.looseShift = 64 - (bits - 1);
+        this.chunk = new byte[this.maxSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.chunk[this.chunkLength++] = (byte) b;
+        if (this.isBoundary(b & 0xFF)) this.emit();
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            this.chunk[this.chunkLength++] = bytes[i];
+            if (this.isBoundary(bytes[i] & 0xFF)) this.emit();
+        }
+    }
+
+    private boolean isBoundary(int b) {
+        if (this.chunkLength >= this.maxSize) return true;
+        if (this.chunkLength < this.minSize) return false;
+
+        // The gear hash shifts left, so its top bits depend on the last 64 bytes only.
+        this.hash = (this.hash << 1) + GEAR[b];
+        final int shift = this.chunkLength < this.averageSize ? this.strictShift : this.looseShift;
+        return this.hash >>> shift == 0;
+    }
+
+    private void emit() throws IOException {
+        this.sink.accept(this.chunk, this.chunkLength);
+        this.chunkLength = 0;
+        this.hash = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) return;
+        this.closed = true;
+
+        if (this.chunkLength > 0) this.emit();
+    }
+
+    @FunctionalInterface
+    public interface ChunkSink {
+        void accept(byte[] chunk, int length) throws IOException;
+    }
+}
@@ -0,0 +1,101 @@
+package ir.mrstudios.databasecloner.streams;
+
+import ir.mrstudios.databasecloner.codecs.Codec;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ParallelCompressorOutputStream extends OutputStream {
+
+    private final OutputStream outputStream;
+    private final Codec codec;
+    private final int blockSize;
+    private final int maxPending;
+    private final ExecutorService compressors;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] block;
+    private int blockLength;
+    private boolean closed;
+
+    public ParallelCompressorOutputStream(OutputStream outputStream, Codec codec, int blockSize, int threads) {
+        this.outputStream = outputStream;
+        this.codec = codec;
+        this.blockSize = blockSize;
+        this.maxPending = threads * 2;
+        this.block = new byte[blockSize];
+        this.compressors = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "backup-compressor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.block[this.blockLength++] = (byte) b;
+        if (this.blockLength == this.blockSize) this.submitBlock();
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            final int copied = Math.min(length, this.blockSize - this.blockLength);
+            System.arraycopy(bytes, offset, this.block, this.blockLength, copied);
+            this.blockLength += copied;
+            offset += copied;
+            length -= copied;
+
+            if (this.blockLength == this.blockSize) this.submitBlock();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) return;
+        this.closed = true;
+
+        try {
+            if (this.blockLength > 0) this.submitBlock();
+            while (!this.pending.isEmpty()) this.writeNext();
+            this.outputStream.flush();
+        } finally {
+            this.compressors.shutdownNow();
+            this.outputStream.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] data = this.block;
+        final int length = this.blockLength;
+
+        this.pending.add(this.compressors.submit(() -> this.codec.compress(data, 0, length)));
+        this.block = new byte[this.blockSize];
+        this.blockLength = 0;
+
+        while (this.pending.size() > this.maxPending) this.writeNext();
+    }
+
+    private void writeNext() throws IOException {
+        try {
+            this.outputStream.write(this.pending.poll().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Compression interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Compression failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ir.mrstudios.databasecloner.streams;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class SplitFileOutputStream extends OutputStream {
+
+    private final String basePath;
+    private final PartListener listener;
+    private final long partSize;
+
+    private OutputStream current;
+    private Path currentPath;
+    private MessageDigest digest;
+    private long currentSize;
+    private int partIndex;
+    private boolean closed;
+
+    public SplitFileOutputStream(String basePath, PartListener listener) {
+        this.basePath = basePath;
+        this.listener = listener;
+        this.partSize = listener.partSize();
+    }
+
+    public static String partPath(String basePath, int index) {
+        return basePath + String.format(".part%03d", index);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (this.current == null) this.openPart();
+
+            final int written = (int) Math.min(length, this.partSize - this.currentSize);
+            this.current.write(bytes, offset, written);
+            this.digest.update(bytes, offset, written);
+            this.currentSize += written;
+            offset += written;
+            length -= written;
+
+            if (this.currentSize == this.partSize) this.finishPart();
+        }
+    }
+
+    private void openPart() throws IOException {
+        this.partIndex++;
+        this.currentPath = Path.of(partPath(this.basePath, this.partIndex));
+        this.current = new BufferedOutputStream(Files.newOutputStream(this.currentPath), 1 << 16);
+        this.currentSize = 0;
+
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void finishPart() throws IOException {
+        this.current.close();
+        this.current = null;
+
+        // Handing the part over as soon as it is full lets it upload while the next one is being written.
+        this.listener.onPart(new Part(
+                this.currentPath, this.partIndex, this.currentSize, HexFormat.of().formatHex(this.digest.digest())
+        ));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (this.current != null) this.current.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) return;
+        this.closed = true;
+
+        if (this.current != null) this.finishPart();
+    }
+
+    public record Part(Path path, int index, long size, String sha256) {
+    }
+
+    public interface PartListener {
+        long partSize();
+
+        void onPart(Part part) throws IOException;
+    }
+}
@@ -0,0 +1,114 @@
+package ir.mrstudios.databasecloner.streams;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+public class SqlStatementReader implements Closeable {
+
+    private final Reader reader;
+    private final char[] buffer = new char[1 << 16];
+    private int position;
+    private int limit;
+
+    public SqlStatementReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    public String next() throws IOException {
+        final StringBuilder statement = new StringBuilder();
+        char quote = 0;
+        boolean escaped = false;
+
+        int current;
+        while ((current = this.read()) >= 0) {
+            final char c = (char) current;
+
+            if (quote != 0) {
+                statement.append(c);
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\' && quote != '`') {
+                    escaped = true;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+
+            if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+                statement.append(c);
+            } else if (c == ';') {
+                final String sql = statement.toString().trim();
+                if (!sql.isEmpty()) return sql;
+                statement.setLength(0);
+            } else if (c == '#' || (c == '-' && this.peek() == '-' && this.isLineCommentAfterDashes())) {
+                this.skipLine();
+            } else if (c == '/' && this.peek() == '*' && this.peekAt(1) != '!') {
+                this.skipBlockComment();
+            } else {
+                statement.append(c);
+            }
+        }
+
+        final String sql = statement.toString().trim();
+        return sql.isEmpty() ? null : sql;
+    }
+
+    private boolean isLineCommentAfterDashes() throws IOException {
+        final int after = this.peekAt(1);
+        return after < 0 || Character.isWhitespace(after);
+    }
+
+    private void skipLine() throws IOException {
+        int current;
+        while ((current = this.read()) >= 0 && current != '\n') {
+            // Comment text is not part of any statement.
+        }
+    }
+
+    private void skipBlockComment() throws IOException {
+        this.read();
+        int previous = -1;
+        int current;
+        while ((current = this.read()) >= 0) {
+            if (previous == '*' && current == '/') return;
+            previous = current;
+        }
+    }
+
+    private int read() throws IOException {
+        if (this.position >= this.limit && !this.fill(1)) return -1;
+        return this.buffer[this.position++];
+    }
+
+    private int peek() throws IOException {
+        return this.peekAt(0);
+    }
+
+    private int peekAt(int offset) throws IOException {
+        if (this.position + offset >= this.limit && !this.fill(offset + 1)) return -1;
+        return this.buffer[this.position + offset];
+    }
+
+    private boolean fill(int needed) throws IOException {
+        // Keep the unread tail so peeks can look across buffer boundaries.
+        final int remaining = this.limit - this.position;
+        System.arraycopy(this.buffer, this.position, this.buffer, 0, remaining);
+        this.position = 0;
+        this.limit = remaining;
+
+        while (this.limit < needed) {
+            final int read = this.reader.read(this.buffer, this.limit, this.buffer.length - this.limit);
+            if (read < 0) return false;
+            this.limit += read;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
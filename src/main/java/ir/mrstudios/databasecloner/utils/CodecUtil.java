@@ -0,0 +1,44 @@
+package ir.mrstudios.databasecloner.utils;
+
+import ir.mrstudios.databasecloner.codecs.*;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@UtilityClass
+public class CodecUtil {
+
+    public Codec create(String name, int level, boolean longMode) {
+        return switch (name.toLowerCase()) {
+            case "gzip" -> new GzipCodec(level);
+            case "zstd" -> new ZstdCodec(level, longMode);
+            case "lz4" -> new Lz4Codec();
+            case "none" -> new NoneCodec();
+            default -> throw new IllegalArgumentException("Unknown codec: " + name);
+        };
+    }
+
+    public Codec byName(String name) {
+        return create(name, 6, false);
+    }
+
+    public Codec detect(InputStream inputStream) throws IOException {
+        inputStream.mark(4);
+        final byte[] magic = inputStream.readNBytes(4);
+        inputStream.reset();
+
+        if (magic.length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return byName("gzip");
+        }
+        if (magic.length == 4 && (magic[0] & 0xFF) == 0x28 && (magic[1] & 0xFF) == 0xB5
+            && (magic[2] & 0xFF) == 0x2F && (magic[3] & 0xFF) == 0xFD) {
+            return byName("zstd");
+        }
+        if (magic.length == 4 && (magic[0] & 0xFF) == 0x04 && (magic[1] & 0xFF) == 0x22
+            && (magic[2] & 0xFF) == 0x4D && (magic[3] & 0xFF) == 0x18) {
+            return byName("lz4");
+        }
+        return byName("none");
+    }
+}
@@ -0,0 +1,107 @@
+package ir.mrstudios.databasecloner.utils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+public class CronExpression {
+
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean anyDayOfMonth;
+    private final boolean anyDayOfWeek;
+
+    // Far enough for "29 2 * * 1" style expressions that only match every few years.
+    private static final int SEARCH_YEARS = 8;
+
+    public CronExpression(String expression) {
+        final String[] fields = expression.trim().split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Cron expression needs 5 fields (minute hour day month weekday): "
+                                               + expression);
+        }
+
+        this.expression = expression.trim();
+        this.minutes = parseField(fields[0], 0, 59);
+        this.hours = parseField(fields[1], 0, 23);
+        this.daysOfMonth = parseField(fields[2], 1, 31);
+        this.months = parseField(fields[3], 1, 12);
+        this.daysOfWeek = parseField(fields[4], 0, 7);
+        // Sunday may be written as 0 or 7.
+        if (this.daysOfWeek.get(7)) this.daysOfWeek.set(0);
+        this.anyDayOfMonth = fields[2].equals("*");
+        this.anyDayOfWeek = fields[4].equals("*");
+    }
+
+    private static BitSet parseField(String field, int min, int max) {
+        final BitSet values = new BitSet(max + 1);
+
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+            final int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = Integer.parseInt(part.substring(slash + 1));
+                range = part.substring(0, slash);
+            }
+
+            int from;
+            int to;
+            if (range.equals("*")) {
+                from = min;
+                to = max;
+            } else if (range.contains("-")) {
+                from = Integer.parseInt(range.substring(0, range.indexOf('-')));
+                to = Integer.parseInt(range.substring(range.indexOf('-') + 1));
+            } else {
+                from = Integer.parseInt(range);
+                to = slash >= 0 ? max : from;
+            }
+
+            if (from < min || to > max || from > to || step < 1) {
+                throw new IllegalArgumentException("Invalid cron field: " + field);
+            }
+            for (int value = from; value <= to; value += step) values.set(value);
+        }
+        return values;
+    }
+
+    public LocalDateTime next(LocalDateTime after) {
+        LocalDateTime time = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        final LocalDateTime limit = time.plusYears(SEARCH_YEARS);
+
+        // Jumps a whole month, day or hour whenever that field can't match, so a search never walks every minute.
+        while (time.isBefore(limit)) {
+            if (!this.months.get(time.getMonthValue())) {
+                time = time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+            } else if (!this.matchesDay(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!this.hours.get(time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!this.minutes.get(time.getMinute())) {
+                time = time.plusMinutes(1);
+            } else {
+                return time;
+            }
+        }
+        throw new IllegalStateException("Cron expression never matches: " + this.expression);
+    }
+
+    private boolean matchesDay(LocalDateTime time) {
+        final boolean dayOfMonth = this.daysOfMonth.get(time.getDayOfMonth());
+        final boolean dayOfWeek = this.daysOfWeek.get(time.getDayOfWeek().getValue() % 7);
+
+        // Like cron, a restricted day of month and day of week match when either of them does.
+        if (this.anyDayOfMonth || this.anyDayOfWeek) return dayOfMonth && dayOfWeek;
+        return dayOfMonth || dayOfWeek;
+    }
+
+    @Override
+    public String toString() {
+        return this.expression;
+    }
+}
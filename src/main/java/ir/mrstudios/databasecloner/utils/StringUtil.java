@@ -4,11 +4,20 @@ import lombok.experimental.UtilityClass;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
 
 @UtilityClass
 public class StringUtil {
 
+    private final Pattern BACKUP_EXTENSION = Pattern.compile(
+            "\\.(archive|backup|sql)(\\.(gz|zst|lz4))?$|\\.(gz|zst|lz4)$"
+    );
+
     public String timeNow() {
         return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH-mm"));
     }
+
+    public String stripBackupExtension(String path) {
+        return BACKUP_EXTENSION.matcher(path).replaceFirst("");
+    }
 }
@@ -0,0 +1,301 @@
+package ir.mrstudios.databasecloner.models;
+
+import com.github.shyiko.mysql.binlog.event.*;
+import com.github.shyiko.mysql.binlog.event.deserialization.ColumnType;
+import ir.mrstudios.databasecloner.codecs.GzipCodec;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MySQLBinlogDeltaTest {
+
+    private static final long TABLE_ID = 7;
+
+    @Test
+    void matchesLoggedTypes() {
+        assertTrue(MySQLBinlogDelta.matches("tinyint", ColumnType.TINY));
+        assertTrue(MySQLBinlogDelta.matches("int", ColumnType.LONG));
+        assertTrue(MySQLBinlogDelta.matches("varchar", ColumnType.VARCHAR));
+        assertTrue(MySQLBinlogDelta.matches("enum", ColumnType.STRING));
+        assertTrue(MySQLBinlogDelta.matches("set", ColumnType.STRING));
+        assertTrue(MySQLBinlogDelta.matches("text", ColumnType.BLOB));
+        assertTrue(MySQLBinlogDelta.matches("datetime", ColumnType.DATETIME_V2));
+        assertTrue(MySQLBinlogDelta.matches("vector", ColumnType.BLOB));
+
+        assertFalse(MySQLBinlogDelta.matches("int", ColumnType.TINY));
+        assertFalse(MySQLBinlogDelta.matches("varchar", ColumnType.LONG));
+        assertFalse(MySQLBinlogDelta.matches("bigint", null));
+    }
+
+    @Test
+    void widensUnsignedIntegers() {
+        assertEquals("255", literal(ColumnType.TINY, true, -1));
+        assertEquals("65535", literal(ColumnType.SHORT, true, -1));
+        assertEquals("16777215", literal(ColumnType.INT24, true, -1));
+        assertEquals("4294967295", literal(ColumnType.LONG, true, -1));
+        assertEquals("18446744073709551615", literal(ColumnType.LONGLONG, true, -1L));
+        assertEquals("-5", literal(ColumnType.LONG, false, -5));
+        assertEquals("-1", literal(ColumnType.LONGLONG, false, -1L));
+    }
+
+    @Test
+    void rendersEnumSetBitAndBinaryLiterals() {
+        final BitSet bits = new BitSet();
+        bits.set(0);
+        bits.set(2);
+
+        assertEquals("5", literal(ColumnType.BIT, false, bits));
+        assertEquals("0", literal(ColumnType.BIT, false, new BitSet()));
+        // Enums are logged as their 1-based index and sets as their member bitmask, both are valid as numbers.
+        assertEquals("2", literal(ColumnType.STRING, false, 2));
+        assertEquals("5", literal(ColumnType.STRING, false, 5L));
+        assertEquals("0x01AB", literal(ColumnType.VARCHAR, false, new byte[]{0x01, (byte) 0xAB}));
+        assertEquals("''", literal(ColumnType.BLOB, false, new byte[0]));
+        assertEquals("12.50", literal(ColumnType.NEWDECIMAL, false, new BigDecimal("12.50")));
+        assertEquals("NULL", literal(ColumnType.LONG, false, null));
+    }
+
+    @Test
+    void rendersTemporalValues() {
+        final long dateTime = LocalDateTime.of(2024, 1, 2, 3, 4, 5).toEpochSecond(ZoneOffset.UTC) * 1_000_000
+                              + 123_456;
+        final long date = LocalDate.of(2024, 1, 2).toEpochDay() * 86_400_000_000L;
+        final long time = -(3_600_000_000L + 2 * 60_000_000L + 3_500_000L);
+
+        assertEquals("'2024-01-02 03:04:05.123456'", literal(ColumnType.DATETIME_V2, false, dateTime));
+        assertEquals("'2024-01-02 03:04:05.123456'", literal(ColumnType.TIMESTAMP_V2, false, dateTime));
+        assertEquals("'2024-01-02'", literal(ColumnType.DATE, false, date));
+        assertEquals("'-01:02:03.500000'", literal(ColumnType.TIME_V2, false, time));
+        assertEquals("'1969-12-31 23:59:59.999999'", literal(ColumnType.DATETIME_V2, false, -1L));
+    }
+
+    @Test
+    void rendersZeroDates() {
+        assertEquals("'0000-00-00 00:00:00'", literal(ColumnType.DATETIME_V2, false, Long.MIN_VALUE));
+        assertEquals("'0000-00-00'", literal(ColumnType.DATE, false, Long.MIN_VALUE));
+        assertEquals("'00:00:00'", literal(ColumnType.TIME_V2, false, Long.MIN_VALUE));
+    }
+
+    @Test
+    void replaysWrittenDelta() throws Exception {
+        final File deltaFile = this.writeDelta();
+        final List<List<String>> applied = new ArrayList<>();
+
+        final MySQLBinlogDelta.DeltaRange range = MySQLBinlogDelta.replay(
+                recordingConnection(applied), deltaFile.getPath(), null, Long.MAX_VALUE
+        );
+
+        assertEquals(List.of(
+                List.of("REPLACE INTO `items` (`id`, `name`, `flag`) VALUES (4294967295, 0x61, 1)"),
+                List.of("UPDATE `items` SET `id` = 1, `name` = 0x62, `flag` = 0 WHERE `id` <=> 1 LIMIT 1"),
+                List.of("DELETE FROM `items` WHERE `id` <=> 1 LIMIT 1")
+        ), applied);
+        assertEquals("binlog.000001", range.startFile());
+        assertEquals(4, range.startPosition());
+        assertEquals(900, range.endPosition());
+        assertFalse(range.stopped());
+    }
+
+    @Test
+    void stopsAtPointInTime() throws Exception {
+        final File deltaFile = this.writeDelta();
+        final List<List<String>> applied = new ArrayList<>();
+
+        final MySQLBinlogDelta.DeltaRange range = MySQLBinlogDelta.replay(
+                recordingConnection(applied), deltaFile.getPath(), null, 2500
+        );
+
+        assertEquals(2, applied.size());
+        assertTrue(range.stopped());
+    }
+
+    @Test
+    void refusesDeltaThatDoesNotContinue() throws Exception {
+        final File deltaFile = this.writeDelta();
+        final List<List<String>> applied = new ArrayList<>();
+        final MySQLBinlogDelta.DeltaRange previous = new MySQLBinlogDelta.DeltaRange(
+                "binlog.000001", 0, "binlog.000001", 3, false
+        );
+
+        assertThrows(IOException.class, () -> MySQLBinlogDelta.replay(
+                recordingConnection(applied), deltaFile.getPath(), previous, Long.MAX_VALUE
+        ));
+        assertTrue(applied.isEmpty());
+    }
+
+    @Test
+    void failsWhenLoggedTypesDiffer() throws Exception {
+        final MySQLBinlogDelta delta = newDelta();
+        final File deltaFile = File.createTempFile("binlog", ".delta");
+        deltaFile.deleteOnExit();
+
+        try (DataOutputStream ignored = delta.openDelta(deltaFile.getPath(), "binlog.000001", 4,
+                new MySQLSnapshot.BinlogPosition("binlog.000001", 900, null))) {
+            delta.onEvent(event(EventType.TABLE_MAP, 1000,
+                    tableMap(ColumnType.LONG, ColumnType.LONG, ColumnType.TINY)));
+
+            final WriteRowsEventData write = new WriteRowsEventData();
+            write.setTableId(TABLE_ID);
+            write.setIncludedColumns(columns(0, 1, 2));
+            write.setRows(List.<Serializable[]>of(new Serializable[]{1, 2, 1}));
+            assertThrows(SQLException.class, () -> delta.onEvent(event(EventType.WRITE_ROWS, 1000, write)));
+        }
+    }
+
+    private File writeDelta() throws Exception {
+        final MySQLBinlogDelta delta = newDelta();
+        final File deltaFile = File.createTempFile("binlog", ".delta");
+        deltaFile.deleteOnExit();
+
+        try (DataOutputStream ignored = delta.openDelta(deltaFile.getPath(), "binlog.000001", 4,
+                new MySQLSnapshot.BinlogPosition("binlog.000001", 900, null))) {
+            final WriteRowsEventData write = new WriteRowsEventData();
+            write.setTableId(TABLE_ID);
+            write.setIncludedColumns(columns(0, 1, 2));
+            write.setRows(List.<Serializable[]>of(new Serializable[]{-1, "a".getBytes(), 1}));
+            this.transaction(delta, 1000, EventType.EXT_WRITE_ROWS, write);
+
+            final UpdateRowsEventData update = new UpdateRowsEventData();
+            update.setTableId(TABLE_ID);
+            update.setIncludedColumnsBeforeUpdate(columns(0, 1, 2));
+            update.setIncludedColumns(columns(0, 1, 2));
+            update.setRows(List.of(Map.entry(
+                    new Serializable[]{1, "a".getBytes(), 1}, new Serializable[]{1, "b".getBytes(), 0}
+            )));
+            this.transaction(delta, 2000, EventType.EXT_UPDATE_ROWS, update);
+
+            final DeleteRowsEventData delete = new DeleteRowsEventData();
+            delete.setTableId(TABLE_ID);
+            delete.setIncludedColumns(columns(0, 1, 2));
+            delete.setRows(List.<Serializable[]>of(new Serializable[]{1, "b".getBytes(), 0}));
+            this.transaction(delta, 3000, EventType.EXT_DELETE_ROWS, delete);
+
+            delta.closeDelta();
+        }
+        return deltaFile;
+    }
+
+    private void transaction(MySQLBinlogDelta delta, long timestamp, EventType type, EventData rows)
+            throws Exception {
+        final QueryEventData begin = new QueryEventData();
+        begin.setSql("BEGIN");
+        begin.setDatabase("shop");
+
+        delta.onEvent(event(EventType.QUERY, timestamp, begin));
+        delta.onEvent(event(EventType.TABLE_MAP, timestamp,
+                tableMap(ColumnType.LONG, ColumnType.VARCHAR, ColumnType.TINY)));
+        delta.onEvent(event(type, timestamp, rows));
+        delta.onEvent(event(EventType.XID, timestamp, new XidEventData()));
+    }
+
+    private static MySQLBinlogDelta newDelta() {
+        final List<String[]> columns = List.of(
+                new String[]{"id", "int", "int unsigned", "PRI", ""},
+                new String[]{"name", "varchar", "varchar(32)", "", ""},
+                new String[]{"flag", "tinyint", "tinyint", "", ""}
+        );
+        return new MySQLBinlogDelta("localhost", 3306, "root", "", "shop", columnsDataSource(columns),
+                new GzipCodec(6));
+    }
+
+    private static TableMapEventData tableMap(ColumnType... types) {
+        final byte[] codes = new byte[types.length];
+        for (int i = 0; i < types.length; i++) {
+            codes[i] = (byte) types[i].getCode();
+        }
+
+        final TableMapEventData data = new TableMapEventData();
+        data.setTableId(TABLE_ID);
+        data.setDatabase("shop");
+        data.setTable("items");
+        data.setColumnTypes(codes);
+        return data;
+    }
+
+    private static BitSet columns(int... indexes) {
+        final BitSet bits = new BitSet();
+        for (int index : indexes) {
+            bits.set(index);
+        }
+        return bits;
+    }
+
+    private static Event event(EventType type, long timestamp, EventData data) {
+        final EventHeaderV4 header = new EventHeaderV4();
+        header.setEventType(type);
+        header.setTimestamp(timestamp);
+        return new Event(header, data);
+    }
+
+    private static String literal(ColumnType type, boolean unsigned, Serializable value) {
+        final StringBuilder out = new StringBuilder();
+        MySQLBinlogDelta.appendLiteral(type, unsigned, value, out);
+        return out.toString();
+    }
+
+    private static DataSource columnsDataSource(List<String[]> columns) {
+        final ResultSet resultSet = proxy(ResultSet.class, new InvocationHandler() {
+            private int row = -1;
+
+            @Override
+            public Object invoke(Object self, java.lang.reflect.Method method, Object[] args) {
+                return switch (method.getName()) {
+                    case "next" -> ++this.row < columns.size();
+                    case "getString" -> columns.get(this.row)[(int) args[0] - 1];
+                    default -> defaultValue(method.getReturnType());
+                };
+            }
+        });
+        final PreparedStatement statement = proxy(PreparedStatement.class, (self, method, args) ->
+                method.getName().equals("executeQuery") ? resultSet : defaultValue(method.getReturnType()));
+        final Connection connection = proxy(Connection.class, (self, method, args) ->
+                method.getName().equals("prepareStatement") ? statement : defaultValue(method.getReturnType()));
+        return proxy(DataSource.class, (self, method, args) ->
+                method.getName().equals("getConnection") ? connection : defaultValue(method.getReturnType()));
+    }
+
+    private static Connection recordingConnection(List<List<String>> applied) {
+        final List<String> batch = new ArrayList<>();
+        final Statement statement = proxy(Statement.class, (self, method, args) -> {
+            switch (method.getName()) {
+                case "addBatch" -> batch.add((String) args[0]);
+                case "executeBatch" -> {
+                    applied.add(List.copyOf(batch));
+                    return new int[batch.size()];
+                }
+                case "clearBatch" -> batch.clear();
+                default -> {
+                }
+            }
+            return defaultValue(method.getReturnType());
+        });
+        return proxy(Connection.class, (self, method, args) ->
+                method.getName().equals("createStatement") ? statement : defaultValue(method.getReturnType()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        return null;
+    }
+}